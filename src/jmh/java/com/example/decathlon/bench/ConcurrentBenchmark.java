@@ -0,0 +1,70 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.dto.StandingDto;
+import com.example.decathlon.journal.JournalManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Officials posting results while scoreboards poll standings. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Group)
+public class ConcurrentBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int athletes;
+
+    @Param({"DEC", "HEP"})
+    public ScoringService.Mode mode;
+
+    /** NONE scores without a journal; the field is populated before the journal starts. */
+    @Param({"NONE", "GROUP"})
+    public String journal;
+
+    private CompetitionService comp;
+    private List<String> ids;
+    private Path dir;
+    private JournalManager journalManager;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        comp = new CompetitionService(new ScoringService());
+        Fixtures.populate(comp, mode, athletes, 42);
+        ids = new ArrayList<>(new ScoringService().events(mode).keySet());
+        dir = Files.createTempDirectory("concurrent-bench");
+        journalManager = Fixtures.journal(comp, dir, journal);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (journalManager != null) journalManager.close();
+        Fixtures.delete(dir);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public int score() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String id = ids.get(rnd.nextInt(ids.size()));
+        return comp.score(Fixtures.name(rnd.nextInt(athletes)), id, Fixtures.performance(id, rnd), mode.name());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public List<StandingDto> standings() {
+        return comp.standings();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.csv.CsvReader;
+import com.example.decathlon.dto.ImportReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int athletes;
+
+    @Param({"DEC", "HEP"})
+    public ScoringService.Mode mode;
+
+    private CompetitionService source;
+    private CompetitionService target;
+    private String csv;
+    private byte[] csvBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        source = new CompetitionService(new ScoringService());
+        Fixtures.populate(source, mode, athletes, 42);
+        csv = source.exportCsv(mode.name());
+        csvBytes = csv.getBytes(StandardCharsets.UTF_8);
+        target = new CompetitionService(new ScoringService());
+    }
+
+    @Benchmark
+    public String exportCsv() {
+        return source.exportCsv(mode.name());
+    }
+
+    /** Streaming export into a sink, as the /export.csv endpoint does. */
+    @Benchmark
+    public void exportCsvStreaming() throws IOException {
+        source.exportCsv(mode.name(), Writer.nullWriter());
+    }
+
+    @Benchmark
+    public int importCsv() {
+        target.importCsv(csv);
+        return target.standings().size();
+    }
+
+    /** Streaming import from the raw request bytes, as POST /import.csv does. */
+    @Benchmark
+    public ImportReport importCsvStream() throws IOException {
+        return target.importCsv(new ByteArrayInputStream(csvBytes), CsvReader.ErrorPolicy.SKIP);
+    }
+}
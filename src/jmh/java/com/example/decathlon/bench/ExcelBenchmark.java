@@ -0,0 +1,116 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.AthleteStore;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.csv.CsvReader;
+import com.example.decathlon.dto.ImportReport;
+import com.example.decathlon.excel.ExcelReader;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming {@code .xlsx} import of a federation-sized results sheet. The {@code rows} counter gives rows per second,
+ * and the peak heap of each iteration is printed after it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ExcelBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int athletes;
+
+    @Param({"DEC", "HEP"})
+    public ScoringService.Mode mode;
+
+    private Path file;
+    private CompetitionService target;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        CompetitionService source = new CompetitionService(new ScoringService());
+        Fixtures.populate(source, mode, athletes, 42);
+        file = Files.createTempFile("excel-bench", ".xlsx");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(source, out);
+        }
+        target = new CompetitionService(new ScoringService());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeak() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) pool.resetPeakUsage();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.printf("%npeak heap: %d MB for a %d MB file%n", peak >> 20, file.toFile().length() >> 20);
+    }
+
+    @Benchmark
+    public ImportReport importXlsx(Rows counter) throws IOException {
+        ImportReport r = new ExcelReader(CsvReader.ErrorPolicy.SKIP).importInto(target.getDefault(), file);
+        counter.rows += r.rows();
+        return r;
+    }
+
+    /** The import layout: MODE row, Name/event-id header, then raw performances as numeric cells. */
+    private void write(CompetitionService source, OutputStream out) throws IOException {
+        List<String> ids = new ArrayList<>(new ScoringService().events(mode).keySet());
+        SXSSFWorkbook wb = new SXSSFWorkbook(100);
+        try {
+            SXSSFSheet sheet = wb.createSheet("results");
+            Row r = sheet.createRow(0);
+            r.createCell(0).setCellValue("MODE");
+            r.createCell(1).setCellValue(mode.name());
+            r = sheet.createRow(1);
+            r.createCell(0).setCellValue("Name");
+            for (int i = 0; i < ids.size(); i++) r.createCell(1 + i).setCellValue(ids.get(i));
+            int n = 2;
+            for (AthleteStore.Athlete a : source.athletes()) {
+                r = sheet.createRow(n++);
+                r.createCell(0).setCellValue(a.name());
+                for (int i = 0; i < ids.size(); i++) {
+                    double v = a.result(ids.get(i));
+                    if (!Double.isNaN(v)) r.createCell(1 + i).setCellValue(v);
+                }
+            }
+            wb.write(out);
+        } finally {
+            wb.dispose();
+            wb.close();
+        }
+    }
+}
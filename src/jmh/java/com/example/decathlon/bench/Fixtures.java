@@ -0,0 +1,73 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.journal.Journal;
+import com.example.decathlon.journal.JournalManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+
+/** Realistic, grid-aligned performances for populating a competition. */
+final class Fixtures {
+    private record Range(double lo, double hi, double quantum) {}
+
+    private static final Map<String, Range> RANGES = Map.ofEntries(
+            Map.entry("100m", new Range(10.2, 12.0, 0.01)),
+            Map.entry("longJump", new Range(600, 780, 1)),
+            Map.entry("shotPut", new Range(11.0, 17.0, 0.01)),
+            Map.entry("highJump", new Range(175, 220, 1)),
+            Map.entry("400m", new Range(46.0, 54.0, 0.01)),
+            Map.entry("110mHurdles", new Range(13.8, 16.5, 0.01)),
+            Map.entry("discus", new Range(35.0, 52.0, 0.01)),
+            Map.entry("poleVault", new Range(400, 540, 1)),
+            Map.entry("javelin", new Range(50.0, 72.0, 0.01)),
+            Map.entry("1500m", new Range(250.0, 300.0, 0.01)),
+            Map.entry("100mHurdles", new Range(12.8, 14.8, 0.01)),
+            Map.entry("200m", new Range(22.8, 26.0, 0.01)),
+            Map.entry("800m", new Range(125.0, 150.0, 0.01)));
+
+    private Fixtures() {}
+
+    static double performance(String eventId, Random rnd) {
+        Range r = RANGES.get(eventId);
+        double steps = Math.floor((r.hi() - r.lo()) / r.quantum());
+        double q = Math.rint(r.lo() / r.quantum()) + rnd.nextInt((int) steps + 1);
+        return r.quantum() == 1 ? q : q / 100;
+    }
+
+    static String name(int i) { return "Athlete " + i; }
+
+    /** Adds {@code athletes} competitors with a full set of results for the mode. */
+    static void populate(CompetitionService comp, ScoringService.Mode mode, int athletes, long seed) {
+        populate(comp.getDefault(), mode, athletes, seed);
+    }
+
+    static void populate(Competition comp, ScoringService.Mode mode, int athletes, long seed) {
+        Random rnd = new Random(seed);
+        List<String> ids = new ArrayList<>(new ScoringService().events(mode).keySet());
+        for (int i = 0; i < athletes; i++) {
+            String name = name(i);
+            comp.addCompetitor(name);
+            for (String id : ids) comp.score(name, id, performance(id, rnd), mode.name());
+        }
+    }
+
+    /** Journals every later change of {@code comp} in {@code dir} with {@code sync}, or not at all for "NONE". */
+    static JournalManager journal(CompetitionService comp, Path dir, String sync) throws IOException {
+        if (sync.equals("NONE")) return null;
+        return new JournalManager(comp, dir, 64L << 20, Journal.Sync.valueOf(sync), Duration.ZERO);
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null) return;
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.AthleteStore;
+import com.example.decathlon.core.ScoringService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Retained heap per athlete of {@link AthleteStore} against the map-based layout it replaced: a name map, an
+ * insertion-order queue and an immutable {@code HashMap<String, Double>} of results per athlete. Both hold the same
+ * full set of results for the mode. Sizes are heap deltas after a full GC, so run with a fixed heap and nothing else
+ * in the JVM.
+ *
+ * <p>Not a JMH benchmark; run after {@code mvn -Pbench -DskipTests verify} with
+ * {@code java -Xms4g -Xmx4g -cp target/test-classes:target/classes:<test classpath>
+ * com.example.decathlon.bench.FootprintReport [athletes] [mode]}.
+ */
+public final class FootprintReport {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    /** The old per-athlete layout. */
+    private record MapAthlete(String name, long seq, Map<String, Double> results) {}
+
+    private FootprintReport() {}
+
+    public static void main(String[] args) {
+        int athletes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ScoringService.Mode mode = args.length > 1 ? ScoringService.Mode.valueOf(args[1]) : ScoringService.Mode.DEC;
+        List<String> ids = new ArrayList<>(new ScoringService().events(mode).keySet());
+        String[] names = new String[athletes];
+        double[][] values = new double[athletes][ids.size()];
+        Random rnd = new Random(42);
+        for (int i = 0; i < athletes; i++) {
+            names[i] = Fixtures.name(i);
+            for (int j = 0; j < ids.size(); j++) values[i][j] = Fixtures.performance(ids.get(j), rnd);
+        }
+
+        long base = used();
+        ConcurrentHashMap<String, MapAthlete> byName = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<MapAthlete> order = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < athletes; i++) {
+            Map<String, Double> r = new HashMap<>();
+            for (int j = 0; j < ids.size(); j++) r.put(ids.get(j), values[i][j]);
+            MapAthlete a = new MapAthlete(names[i], i, Collections.unmodifiableMap(r));
+            byName.put(names[i], a);
+            order.add(a);
+        }
+        long maps = used() - base;
+        Reference.reachabilityFence(byName);
+        Reference.reachabilityFence(order);
+        // Drop the locals, or an interpreted frame keeps the map layout alive through the next measurement.
+        byName = null;
+        order = null;
+
+        base = used();
+        AthleteStore store = new AthleteStore();
+        for (int i = 0; i < athletes; i++) {
+            for (int j = 0; j < ids.size(); j++) store.put(names[i], ids.get(j), values[i][j]);
+        }
+        long columns = used() - base;
+        Reference.reachabilityFence(store);
+
+        System.out.printf("%d athletes, %s (%d results each), names excluded%n", athletes, mode, ids.size());
+        System.out.printf("%-10s %12s %14s %14s%n", "layout", "MB", "B/athlete", "B/result");
+        print("maps", maps, athletes, ids.size());
+        print("columnar", columns, athletes, ids.size());
+    }
+
+    private static void print(String layout, long bytes, int athletes, int results) {
+        System.out.printf("%-10s %12.1f %14.1f %14.1f%n", layout, bytes / 1e6,
+                (double) bytes / athletes, (double) bytes / ((long) athletes * results));
+    }
+
+    private static long used() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
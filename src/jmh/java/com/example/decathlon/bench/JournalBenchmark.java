@@ -0,0 +1,121 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.journal.Journal;
+import com.example.decathlon.journal.JournalManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Cost of journaling on the score path, and time to recover a journal of {@code entries} scores. */
+public class JournalBenchmark {
+    private static final ScoringService.Mode MODE = ScoringService.Mode.DEC;
+    private static final int ATHLETES = 100_000;
+    private static final long SEGMENT_BYTES = 64L << 20;
+
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    @State(Scope.Benchmark)
+    public static class Write {
+        /** NONE scores without a journal. */
+        @Param({"NONE", "GROUP", "ASYNC"})
+        public String sync;
+
+        private Path dir;
+        private JournalManager journal;
+        private CompetitionService comp;
+        private List<String> ids;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            comp = new CompetitionService(new ScoringService());
+            if (!sync.equals("NONE")) {
+                dir = Files.createTempDirectory("journal-bench");
+                journal = new JournalManager(comp, dir, SEGMENT_BYTES, Journal.Sync.valueOf(sync), Duration.ZERO);
+            }
+            ids = new ArrayList<>(new ScoringService().events(MODE).keySet());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (journal != null) journal.close();
+            Fixtures.delete(dir);
+        }
+
+        @Benchmark
+        @Threads(4)
+        public int score() {
+            Random rnd = ThreadLocalRandom.current();
+            String id = ids.get(rnd.nextInt(ids.size()));
+            return comp.score(Fixtures.name(rnd.nextInt(ATHLETES)), id, Fixtures.performance(id, rnd), MODE.name());
+        }
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+    @State(Scope.Benchmark)
+    public static class Recovery {
+        @Param({"1000000"})
+        public int entries;
+
+        private Path master;
+        private Path dir;
+        private JournalManager recovered;
+
+        /** Writes the journal once, without a snapshot, so that recovery replays every record. */
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            master = Files.createTempDirectory("journal-bench");
+            CompetitionService comp = new CompetitionService(new ScoringService());
+            try (Journal journal = new Journal(master, SEGMENT_BYTES, Journal.Sync.ASYNC, 1, op -> {})) {
+                comp.setChangeLog(journal);
+                List<String> ids = new ArrayList<>(new ScoringService().events(MODE).keySet());
+                Random rnd = new Random(42);
+                for (int i = 0; i < entries; i++) {
+                    String id = ids.get(rnd.nextInt(ids.size()));
+                    comp.score(Fixtures.name(rnd.nextInt(ATHLETES)), id, Fixtures.performance(id, rnd), MODE.name());
+                }
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() throws IOException {
+            dir = Files.createTempDirectory("journal-bench");
+            try (Stream<Path> s = Files.list(master)) {
+                for (Path p : s.toList()) Files.copy(p, dir.resolve(p.getFileName()));
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void closeCopy() throws IOException {
+            recovered.close();
+            Fixtures.delete(dir);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException { Fixtures.delete(master); }
+
+        @Benchmark
+        public JournalManager recover() throws IOException {
+            recovered = new JournalManager(new CompetitionService(new ScoringService()), dir, SEGMENT_BYTES,
+                    Journal.Sync.ASYNC, Duration.ZERO);
+            return recovered;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.Application;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform against virtual request threads under many slow clients. For each mode the application is started in a
+ * child process; {@code clients} connections each upload a CSV to {@code /import.csv} in two halves, {@code hold}
+ * apart, while a probe posts results to {@code /score} and records their latency. With platform threads the uploads
+ * occupy Tomcat's pool and the probe queues behind them. With virtual threads they should not, but before JDK 24
+ * Tomcat's blocking reads pin the carrier thread, so the virtual run only pulls ahead on JDK 24 or later.
+ *
+ * <p>Not a JMH benchmark; run after {@code mvn -Pbench -DskipTests verify} with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> com.example.decathlon.bench.LoadTest
+ * [clients] [holdSeconds] [modes]}. Each process needs a file descriptor per client.
+ */
+public final class LoadTest {
+    private static final String BASE = "/com/example/decathlon/api";
+    private static final String CSV = "MODE,DEC\nName,100m,longJump,Total\nA,10.9,720,0\nB,11.2,690,0\n";
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Duration hold = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 5);
+        List<String> modes = args.length > 2 ? Arrays.asList(args[2].split(",")) : List.of("platform", "virtual");
+        System.out.printf("%-8s %8s %8s %10s %10s %10s %10s%n",
+                "threads", "clients", "ok", "probes", "p50 ms", "p99 ms", "max ms");
+        for (String mode : modes) run(mode, clients, hold);
+    }
+
+    private static void run(String mode, int clients, Duration hold) throws Exception {
+        int port = freePort();
+        Process server = new ProcessBuilder(javaBin(), "-cp", System.getProperty("java.class.path"),
+                Application.class.getName(), "--server.port=" + port,
+                "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                "--decathlon.journal.enabled=false", "--logging.level.root=WARN")
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI score = URI.create("http://localhost:" + port + BASE + "/score");
+            awaitUp(http, score);
+
+            byte[] body = CSV.getBytes(StandardCharsets.UTF_8);
+            AtomicInteger ok = new AtomicInteger();
+            CountDownLatch connected = new CountDownLatch(clients);
+            CountDownLatch done = new CountDownLatch(clients);
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    pool.execute(() -> {
+                        AtomicBoolean signalled = new AtomicBoolean();
+                        Runnable onConnected = () -> { if (signalled.compareAndSet(false, true)) connected.countDown(); };
+                        try {
+                            if (slowUpload(port, body, hold, onConnected)) ok.incrementAndGet();
+                        } catch (IOException | InterruptedException ignored) {
+                        } finally {
+                            onConnected.run();
+                            done.countDown();
+                        }
+                    });
+                }
+                connected.await();
+                long[] latencies = probe(http, score, hold.toMillis());
+                done.await();
+                Arrays.sort(latencies);
+                System.out.printf("%-8s %8d %8d %10d %10.1f %10.1f %10.1f%n", mode, clients, ok.get(), latencies.length,
+                        pct(latencies, 0.5), pct(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+            }
+        } finally {
+            server.destroy();
+            server.waitFor();
+        }
+    }
+
+    /** Sends the request head and half the body, waits {@code hold}, then sends the rest and reads the status. */
+    private static boolean slowUpload(int port, byte[] body, Duration hold, Runnable onConnected)
+            throws IOException, InterruptedException {
+        try (Socket s = new Socket()) {
+            s.connect(new InetSocketAddress("localhost", port), 30_000);
+            OutputStream out = s.getOutputStream();
+            String head = "POST " + BASE + "/import.csv HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/csv\r\n"
+                    + "Content-Length: " + body.length + "\r\nConnection: close\r\n\r\n";
+            out.write(head.getBytes(StandardCharsets.US_ASCII));
+            out.write(body, 0, body.length / 2);
+            out.flush();
+            onConnected.run();
+            Thread.sleep(hold);
+            out.write(body, body.length / 2, body.length - body.length / 2);
+            out.flush();
+            String status = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            return status != null && status.startsWith("HTTP/1.1 200");
+        }
+    }
+
+    /** Posts results one after another for {@code millis} and returns each latency in nanoseconds. */
+    private static long[] probe(HttpClient http, URI score, long millis) throws IOException, InterruptedException {
+        List<Long> latencies = new ArrayList<>();
+        long end = System.nanoTime() + millis * 1_000_000;
+        int i = 0;
+        do {
+            HttpRequest req = HttpRequest.newBuilder(score).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"Probe " + (i++ % 100) + "\",\"event\":\"100m\",\"raw\":11.0}")).build();
+            long t = System.nanoTime();
+            http.send(req, HttpResponse.BodyHandlers.discarding());
+            latencies.add(System.nanoTime() - t);
+        } while (System.nanoTime() < end);
+        return latencies.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void awaitUp(HttpClient http, URI score) throws InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder(score.resolve(BASE + "/events")).build();
+        for (int i = 0; i < 600; i++) {
+            try {
+                if (http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                Thread.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Server did not start");
+    }
+
+    private static double pct(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket s = new ServerSocket(0)) { return s.getLocalPort(); }
+    }
+
+    private static String javaBin() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.journal.JournalManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several meets on one server, alternating decathlon and heptathlon. Each thread posts results to one of
+ * {@code competitions} meets; with one meet every thread shares its lock and standings. With a journal every meet
+ * shares it, so throughput that still grows with the number of meets shows the journal does not serialize them.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(8)
+public class MultiCompetitionBenchmark {
+    @State(Scope.Benchmark)
+    public static class Meets {
+        @Param({"1", "2", "8"})
+        public int competitions;
+
+        @Param({"1000"})
+        public int athletes;
+
+        /** NONE scores without a journal; the meets are populated before the journal starts. */
+        @Param({"NONE", "GROUP", "ASYNC"})
+        public String journal;
+
+        CompetitionService comp;
+        Competition[] meets;
+        Path dir;
+        JournalManager journalManager;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            comp = new CompetitionService(new ScoringService());
+            meets = new Competition[competitions];
+            for (int i = 0; i < competitions; i++) {
+                ScoringService.Mode mode = i % 2 == 0 ? ScoringService.Mode.DEC : ScoringService.Mode.HEP;
+                meets[i] = comp.open("meet-" + i, mode);
+                Fixtures.populate(meets[i], mode, athletes, 42 + i);
+            }
+            dir = Files.createTempDirectory("multi-competition-bench");
+            journalManager = Fixtures.journal(comp, dir, journal);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (journalManager != null) journalManager.close();
+            Fixtures.delete(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Official {
+        Competition meet;
+        List<String> ids;
+
+        @Setup(Level.Trial)
+        public void setup(Meets m, ThreadParams t) {
+            meet = m.meets[t.getThreadIndex() % m.competitions];
+            ids = new ArrayList<>(new ScoringService().events(meet.mode()).keySet());
+        }
+    }
+
+    @Benchmark
+    public int score(Meets m, Official o) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String id = o.ids.get(rnd.nextInt(o.ids.size()));
+        return o.meet.score(Fixtures.name(rnd.nextInt(m.athletes)), id, Fixtures.performance(id, rnd), null);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.AthleteStore;
+import com.example.decathlon.core.Rescoring;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.core.StandingsIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full rescoring of a field, as after an import or a mode switch, with the rescoring pool at each parallelism.
+ * Scaling only shows up to the machine's core count; pin the fork with {@code taskset} to measure fewer cores than
+ * there are.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class RescoringBenchmark {
+    @Param({"100000", "1000000"})
+    public int athletes;
+
+    @Param({"1", "4", "16", "64"})
+    public int parallelism;
+
+    private final ScoringService scoring = new ScoringService();
+    private AthleteStore store;
+    private StandingsIndex index;
+    private Rescoring rescoring;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        store = new AthleteStore();
+        Random rnd = new Random(42);
+        List<String> ids = new ArrayList<>(scoring.events(ScoringService.Mode.DEC).keySet());
+        for (int i = 0; i < athletes; i++) {
+            for (String id : ids) store.put(Fixtures.name(i), id, Fixtures.performance(id, rnd));
+        }
+        index = new StandingsIndex(scoring);
+        rescoring = Rescoring.parallel(parallelism, 16_384);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rescoring.close();
+    }
+
+    @Benchmark
+    public int rebuild() {
+        index.rebuild(store.athletes(), ScoringService.Mode.DEC, rescoring);
+        return index.size();
+    }
+}
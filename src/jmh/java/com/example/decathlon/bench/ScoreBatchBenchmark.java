@@ -0,0 +1,90 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.Application;
+import com.example.decathlon.core.ScoringService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posting {@code results} results over HTTP: one request per result against one {@code /score/batch} request, as
+ * JSON array and as NDJSON. Runs the application on a random port with the journal off, so the difference is
+ * request overhead. Scores are reported per request set, i.e. per heat.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoreBatchBenchmark {
+    private static final String BASE = "/com/example/decathlon/api";
+
+    @Param({"8", "100", "1000"})
+    public int results;
+
+    private ConfigurableApplicationContext app;
+    private HttpClient http;
+    private URI single, batch;
+    private List<String> singles;
+    private String jsonArray, ndjson;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        app = new SpringApplication(Application.class).run("--server.port=0", "--decathlon.journal.enabled=false",
+                "--server.compression.enabled=false", "--logging.level.root=WARN");
+        String root = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + BASE;
+        single = URI.create(root + "/score");
+        batch = URI.create(root + "/score/batch");
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        List<String> ids = new ArrayList<>(new ScoringService().events(ScoringService.Mode.DEC).keySet());
+        Random rnd = new Random(42);
+        singles = new ArrayList<>();
+        for (int i = 0; i < results; i++) {
+            String id = ids.get(rnd.nextInt(ids.size()));
+            singles.add("{\"name\":\"" + Fixtures.name(i % 1000) + "\",\"event\":\"" + id + "\",\"raw\":"
+                    + Fixtures.performance(id, rnd) + ",\"mode\":\"DEC\"}");
+        }
+        jsonArray = "[" + String.join(",", singles) + "]";
+        ndjson = String.join("\n", singles) + "\n";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { app.close(); }
+
+    @Benchmark
+    public int singleCalls() throws IOException, InterruptedException {
+        int status = 0;
+        for (String body : singles) status += post(single, "application/json", body);
+        return status;
+    }
+
+    @Benchmark
+    public int batchJson() throws IOException, InterruptedException {
+        return post(batch, "application/json", jsonArray);
+    }
+
+    @Benchmark
+    public int batchNdjson() throws IOException, InterruptedException {
+        return post(batch, "application/x-ndjson", ndjson);
+    }
+
+    private int post(URI uri, String type, String body) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder(uri).header("Content-Type", type)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        HttpResponse<Void> res = http.send(req, HttpResponse.BodyHandlers.discarding());
+        if (res.statusCode() != 200) throw new IllegalStateException("HTTP " + res.statusCode() + " from " + uri);
+        return res.statusCode();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.ScoringService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+    private static final int SAMPLES = 4096;
+
+    @Param({"DEC", "HEP"})
+    public ScoringService.Mode mode;
+
+    @Param({"true", "false"})
+    public boolean tables;
+
+    private ScoringService scoring;
+    private String[] ids;
+    private ScoringService.Event[] events;
+    private double[] raws;
+    private int i;
+
+    @Setup
+    public void setup() {
+        scoring = new ScoringService(tables, false);
+        List<String> modeIds = new ArrayList<>(scoring.events(mode).keySet());
+        Random rnd = new Random(42);
+        ids = new String[SAMPLES];
+        events = new ScoringService.Event[SAMPLES];
+        raws = new double[SAMPLES];
+        for (int k = 0; k < SAMPLES; k++) {
+            ids[k] = modeIds.get(k % modeIds.size());
+            events[k] = ScoringService.Event.of(ids[k]);
+            raws[k] = Fixtures.performance(ids[k], rnd);
+        }
+    }
+
+    @Benchmark
+    public int scoreById() {
+        int k = i++ & (SAMPLES - 1);
+        return scoring.score(mode, ids[k], raws[k]);
+    }
+
+    @Benchmark
+    public int scoreByEvent() {
+        int k = i++ & (SAMPLES - 1);
+        return scoring.score(mode, events[k], raws[k]);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.dto.StandingDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class StandingsBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int athletes;
+
+    @Param({"DEC", "HEP"})
+    public ScoringService.Mode mode;
+
+    private CompetitionService comp;
+    private List<String> ids;
+    private Random rnd;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        comp = new CompetitionService(new ScoringService());
+        Fixtures.populate(comp, mode, athletes, 42);
+        ids = new ArrayList<>(new ScoringService().events(mode).keySet());
+        rnd = new Random(7);
+    }
+
+    /** Poll with nothing changed since the last read. */
+    @Benchmark
+    public List<StandingDto> standingsUnchanged() {
+        return comp.standings();
+    }
+
+    /** One result recorded between polls, as on a live scoreboard. */
+    @Benchmark
+    public List<StandingDto> scoreThenStandings() {
+        String id = ids.get(rnd.nextInt(ids.size()));
+        comp.score(Fixtures.name(rnd.nextInt(athletes)), id, Fixtures.performance(id, rnd), mode.name());
+        return comp.standings();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.ScoringService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScoringService#scoreBatch} against the scalar loop over {@link ScoringService#score} for a column of 1M
+ * performances. Grid-aligned performances let the scalar loop hit its points tables; off-grid ones (hand-timed or
+ * converted marks) leave it the formula. {@code batchFallback} forks without {@code jdk.incubator.vector} to measure
+ * the scalar fallback.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class VectorScoringBenchmark {
+    private static final int VALUES = 1_000_000;
+
+    @Param({"100m", "javelin", "1500m"})
+    public String event;
+
+    @Param({"true", "false"})
+    public boolean onGrid;
+
+    private final ScoringService scoring = new ScoringService();
+    private ScoringService.Event ev;
+    private double[] raws;
+    private int[] out;
+
+    @Setup
+    public void setup() {
+        ev = ScoringService.Event.of(event);
+        raws = new double[VALUES];
+        out = new int[VALUES];
+        Random rnd = new Random(42);
+        for (int i = 0; i < VALUES; i++) {
+            raws[i] = Fixtures.performance(event, rnd);
+            if (!onGrid) raws[i] += rnd.nextDouble() * 0.01;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int[] scalar() {
+        for (int i = 0; i < VALUES; i++) out[i] = scoring.score(ScoringService.Mode.DEC, ev, raws[i]);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int[] batch() {
+        scoring.scoreBatch(ScoringService.Mode.DEC, ev, raws, 0, VALUES, out);
+        return out;
+    }
+
+    /** The batch without the incubator module: the scalar fallback plus the dispatch around it. */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    @Fork(value = 1)
+    public int[] batchFallback() {
+        scoring.scoreBatch(ScoringService.Mode.DEC, ev, raws, 0, VALUES, out);
+        return out;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.dto.ScoreReq;
+import com.example.decathlon.dto.StandingDto;
+import com.example.decathlon.wire.CompactFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the standings and reading a batch of submitted results as JSON against the {@link CompactFormat}, on
+ * the serialization alone: the standings snapshot is taken once and shared, as a polling scoreboard would see it.
+ * {@link WireFormatReport} prints the body sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    @Param({"40", "1000", "100000"})
+    public int athletes;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private ObjectReader results;
+    private ScoringService scoring;
+    private List<StandingDto> rows;
+    private byte[] resultsJson, resultsCompact;
+
+    @Setup(Level.Trial)
+    public void setup() throws JsonProcessingException {
+        scoring = new ScoringService();
+        CompetitionService comp = new CompetitionService(scoring);
+        Fixtures.populate(comp, ScoringService.Mode.DEC, athletes, 42);
+        rows = comp.standings();
+        results = json.readerForListOf(ScoreReq.class);
+
+        List<String> ids = new ArrayList<>(scoring.events(ScoringService.Mode.DEC).keySet());
+        Random rnd = new Random(7);
+        int n = 1000;
+        String[] names = new String[n], events = new String[n];
+        double[] raws = new double[n];
+        List<ScoreReq> reqs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            names[i] = Fixtures.name(i % 100);
+            events[i] = ids.get(rnd.nextInt(ids.size()));
+            raws[i] = Fixtures.performance(events[i], rnd);
+            reqs.add(new ScoreReq(names[i], events[i], raws[i], "DEC"));
+        }
+        resultsJson = json.writeValueAsBytes(reqs);
+        resultsCompact = CompactFormat.results(ScoringService.Mode.DEC, names, events, raws);
+    }
+
+    @Benchmark
+    public byte[] standingsJson() throws JsonProcessingException {
+        return json.writeValueAsBytes(rows);
+    }
+
+    @Benchmark
+    public byte[] standingsCompact() {
+        return CompactFormat.standings(scoring, ScoringService.Mode.DEC, rows);
+    }
+
+    /** 1000 results for 100 athletes. */
+    @Benchmark
+    public List<ScoreReq> readResultsJson() throws IOException {
+        return results.readValue(resultsJson);
+    }
+
+    /** The same 1000 results. */
+    @Benchmark
+    public CompactFormat.Results readResultsCompact() {
+        return CompactFormat.readResults(resultsCompact, Integer.MAX_VALUE);
+    }
+}
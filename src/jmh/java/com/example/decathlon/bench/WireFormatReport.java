@@ -0,0 +1,63 @@
+package com.example.decathlon.bench;
+
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.dto.StandingDto;
+import com.example.decathlon.wire.CompactFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Body size of the standings as JSON and in the {@link CompactFormat}, plain and gzipped as the server compresses
+ * them, with a rough single-threaded encoding rate; {@link WireFormatBenchmark} measures the rate properly. Checks
+ * that the compact body decodes back to the same standings.
+ *
+ * <p>Not a JMH benchmark; run after {@code mvn -Pbench -DskipTests verify} with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> com.example.decathlon.bench.WireFormatReport
+ * [mode]}.
+ */
+public final class WireFormatReport {
+    private WireFormatReport() {}
+
+    public static void main(String[] args) throws IOException {
+        ScoringService.Mode mode = args.length > 0 ? ScoringService.Mode.valueOf(args[0]) : ScoringService.Mode.DEC;
+        ScoringService scoring = new ScoringService();
+        ObjectMapper json = new ObjectMapper();
+        System.out.printf("%-9s %-8s %12s %10s %12s %10s %12s%n", "athletes", "format", "bytes", "B/athlete",
+                "gzip bytes", "gzip B/ath", "encodes/s");
+        for (int athletes : new int[] {40, 1000, 100_000}) {
+            CompetitionService comp = new CompetitionService(scoring);
+            Fixtures.populate(comp, mode, athletes, 42);
+            List<StandingDto> rows = comp.standings();
+            byte[] compact = CompactFormat.standings(scoring, mode, rows);
+            if (!CompactFormat.readStandings(compact).equals(rows)) throw new IllegalStateException("Round trip differs");
+            byte[] plain = json.writeValueAsBytes(rows);
+            print(athletes, "json", plain, rate(() -> json.writeValueAsBytes(rows)));
+            print(athletes, "compact", compact, rate(() -> CompactFormat.standings(scoring, mode, rows)));
+        }
+    }
+
+    private interface Encoder { byte[] encode() throws IOException; }
+
+    /** Encodings per second over about a second, after as long again of warm-up. */
+    private static double rate(Encoder e) throws IOException {
+        for (long end = System.nanoTime() + 1_000_000_000L; System.nanoTime() < end; ) e.encode();
+        long n = 0, started = System.nanoTime(), end = started + 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            e.encode();
+            n++;
+        }
+        return n / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private static void print(int athletes, String format, byte[] body, double rate) throws IOException {
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) { out.write(body); }
+        System.out.printf("%-9d %-8s %12d %10.1f %12d %10.1f %12.0f%n", athletes, format, body.length,
+                (double) body.length / athletes, gz.size(), (double) gz.size() / athletes, rate);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.decathlon.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Rate-limits writes to the API per client address; a client over its rate is sent 429 with Retry-After. */
+@Configuration
+public class AdmissionConfiguration implements WebMvcConfigurer {
+    private final RateLimiter limiter;
+
+    public AdmissionConfiguration(@Value("${decathlon.admission.rate:50}") double rate,
+                                  @Value("${decathlon.admission.burst:100}") int burst,
+                                  @Value("${decathlon.admission.max-clients:100000}") int maxClients) {
+        this.limiter = new RateLimiter(rate, burst, maxClients);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler) throws IOException {
+                if ("GET".equals(req.getMethod()) || "HEAD".equals(req.getMethod())) return true;
+                long wait = limiter.acquire(req.getRemoteAddr());
+                if (wait == 0) return true;
+                res.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999))));
+                res.sendError(429, "Too many requests");
+                return false;
+            }
+        }).addPathPatterns("/com/example/decathlon/api/**");
+    }
+}
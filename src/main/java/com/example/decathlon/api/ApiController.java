@@ -1,64 +1,511 @@
 package com.example.decathlon.api;
 
+import com.example.decathlon.core.Competition;
 import com.example.decathlon.core.CompetitionService;
 import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.csv.CsvFormatException;
+import com.example.decathlon.csv.CsvReader;
+import com.example.decathlon.dto.CompetitionDto;
+import com.example.decathlon.dto.RankedStandingDto;
 import com.example.decathlon.dto.ScoreReq;
+import com.example.decathlon.excel.ExcelFormatException;
+import com.example.decathlon.excel.ExcelPrinter;
+import com.example.decathlon.excel.ExcelReader;
+import com.example.decathlon.metrics.Counter;
+import com.example.decathlon.metrics.Metrics;
+import com.example.decathlon.wire.CompactFormat;
+import com.example.decathlon.wire.CompactFormatException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 @RestController
 @RequestMapping("/com/example/decathlon/api")
 public class ApiController {
+    private static final Pattern COMPETITION_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final MediaType COMPACT = MediaType.parseMediaType(CompactFormat.MEDIA_TYPE);
+    private static final CacheControl EVENTS_CACHE = CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic();
+
     private final CompetitionService comp;
     private final ScoringService scoring;
+    private final CsvReader.ErrorPolicy importErrorPolicy;
+    private final ObjectReader scoreReqs;
+    private final int batchMax;
+    private final int capacity;
+    private final String fullRetryAfter;
+    private final int xlsxWindow;
+    private final ObjectMapper json;
+    private final ResponseCache cache;
+    private final Counter exportBytes;
+    private final Map<ScoringService.Mode, byte[]> events = new EnumMap<>(ScoringService.Mode.class);
+    private final Map<ScoringService.Mode, String> eventTags = new EnumMap<>(ScoringService.Mode.class);
 
-    public ApiController(CompetitionService comp, ScoringService scoring) {
+    public ApiController(CompetitionService comp, ScoringService scoring,
+                         @Value("${decathlon.import.error-policy:SKIP}") CsvReader.ErrorPolicy importErrorPolicy,
+                         ObjectMapper json,
+                         @Value("${decathlon.score.batch-max:10000}") int batchMax,
+                         @Value("${decathlon.admission.capacity:40}") int capacity,
+                         @Value("${decathlon.admission.full-retry-after:60}") int fullRetryAfter,
+                         @Value("${decathlon.export.xlsx-window:100}") int xlsxWindow,
+                         @Value("${decathlon.cache.max-bytes:8388608}") long cacheBytes,
+                         Metrics metrics) throws JsonProcessingException {
         this.comp = comp;
         this.scoring = scoring;
+        this.importErrorPolicy = importErrorPolicy;
+        this.scoreReqs = json.readerFor(ScoreReq.class);
+        this.batchMax = batchMax;
+        this.capacity = capacity;
+        this.fullRetryAfter = Integer.toString(fullRetryAfter);
+        this.xlsxWindow = xlsxWindow;
+        this.json = json;
+        this.cache = new ResponseCache(cacheBytes);
+        this.exportBytes = metrics.counter("decathlon_csv_bytes_total", "CSV bytes imported or exported", "direction", "export");
+        for (ScoringService.Mode m : ScoringService.Mode.values()) {
+            byte[] body = json.writeValueAsBytes(scoring.events(m));
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            events.put(m, body);
+            eventTags.put(m, "\"events-" + m + "-" + Long.toHexString(crc.getValue()) + "\"");
+        }
     }
 
     @PostMapping("/competitors")
-    public ResponseEntity<?> add(@RequestBody Map<String,String> body) {
-        String name = Optional.ofNullable(body.get("name")).orElse("").trim();
-        if (name.isEmpty() && Math.random() < 0.15) {
-            return ResponseEntity.badRequest().body("Empty name");
-        }
-        if (getCount() >= 40 && Math.random() < 0.9) {
-            return ResponseEntity.status(429).body("Too many competitors");
+    public ResponseEntity<?> add(@RequestBody Map<String,String> body) { return add(comp.getDefault(), body); }
+
+    @PostMapping("/score")
+    public ResponseEntity<?> score(@RequestBody ScoreReq r) { return score(comp.getDefault(), r); }
+
+    @PostMapping(value="/score/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> scoreBatchJson(InputStream body) throws IOException {
+        return scoreBatchJson(comp.getDefault(), body, "DEC");
+    }
+
+    @PostMapping(value="/score/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> scoreBatch(InputStream body) throws IOException {
+        try (MappingIterator<ScoreReq> items = scoreReqs.readValues(body)) {
+            return scoreBatch(comp.getDefault(), items, "DEC");
         }
-        comp.addCompetitor(name);
-        return ResponseEntity.status(201).build();
     }
 
-    private int getCount() { return comp.standings().size(); }
+    @PostMapping(value="/score", consumes = CompactFormat.MEDIA_TYPE)
+    public ResponseEntity<byte[]> scoreCompact(InputStream body) throws IOException {
+        return scoreCompact(comp.getDefault(), body);
+    }
 
-    @PostMapping("/score")
-    public Map<String,Integer> score(@RequestBody ScoreReq r) {
-        int pts = comp.score(r.name(), r.event(), r.raw(), r.mode());
-        return Map.of("points", pts);
+    @GetMapping(value="/standings", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> standings(WebRequest request) { return standings(comp.getDefault(), request, false); }
+
+    /** The standings in the {@link CompactFormat}, for clients that ask for it in Accept. */
+    @GetMapping(value="/standings", produces = CompactFormat.MEDIA_TYPE)
+    public ResponseEntity<byte[]> standingsCompact(WebRequest request) {
+        return standings(comp.getDefault(), request, true);
     }
 
-    @GetMapping("/standings")
-    public List<Map<String,Object>> standings() { return comp.standings(); }
+    /** A page of the standings in rank order, each row with its rank. */
+    @GetMapping(value="/standings", params="limit")
+    public ResponseEntity<?> standings(@RequestParam("limit") int limit,
+                                       @RequestParam(value="offset", defaultValue="0") int offset) {
+        return page(comp.getDefault(), offset, limit);
+    }
+
+    @GetMapping("/standings/top")
+    public ResponseEntity<?> top(@RequestParam(value="k", defaultValue="10") int k) {
+        return page(comp.getDefault(), 0, k);
+    }
+
+    @GetMapping("/athletes/{name}/rank")
+    public ResponseEntity<?> rank(@PathVariable("name") String name) { return rank(comp.getDefault(), name); }
 
     @GetMapping(value="/export.csv", produces = MediaType.TEXT_PLAIN_VALUE)
-    public String export(@RequestParam(value="mode", required=false) String mode) {
-        return comp.exportCsv(mode);
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value="mode", required=false) String mode,
+                                                        WebRequest request) {
+        return export(comp.getDefault(), mode, request);
+    }
+
+    /** Standings of every competition, one sheet each, the default competition first. */
+    @GetMapping(value="/export.xlsx", produces = XLSX)
+    public StreamingResponseBody exportXlsx() {
+        List<Competition> all = new ArrayList<>(comp.competitions());
+        all.sort(Comparator.comparing((Competition c) -> !CompetitionService.DEFAULT.equals(c.id())).thenComparing(Competition::id));
+        return exportXlsx(all);
+    }
+
+    @PostMapping(value="/import.csv", consumes = {MediaType.TEXT_PLAIN_VALUE, "text/csv"})
+    public ResponseEntity<?> importCsv(InputStream body,
+                                       @RequestParam(value="onError", required=false) String onError) throws IOException {
+        return importCsv(comp.getDefault(), body, onError);
+    }
+
+    @PostMapping(value="/import.xlsx", consumes = {XLSX, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> importXlsx(InputStream body,
+                                        @RequestParam(value="onError", required=false) String onError) throws IOException {
+        return importXlsx(comp.getDefault(), body, onError);
+    }
+
+    @GetMapping("/competitions")
+    public List<CompetitionDto> competitions() {
+        return comp.competitions().stream().map(this::describe).toList();
+    }
+
+    /**
+     * Creates a competition, or returns the existing one with its mode and capacity unchanged. Without a capacity the
+     * competition admits {@code decathlon.admission.capacity} competitors.
+     */
+    @PutMapping("/competitions/{id}")
+    public ResponseEntity<?> openCompetition(@PathVariable("id") String id,
+                                             @RequestParam(value="mode", required=false) String mode,
+                                             @RequestParam(value="capacity", required=false) Integer capacity) {
+        if (!COMPETITION_ID.matcher(id).matches()) return ResponseEntity.badRequest().body("Bad competition id");
+        ScoringService.Mode m;
+        try { m = ScoringService.Mode.valueOf(Objects.toString(mode, "DEC").toUpperCase()); }
+        catch (Exception e) { return ResponseEntity.badRequest().body("Unknown mode"); }
+        if (capacity != null && capacity < 1) return ResponseEntity.badRequest().body("Capacity must be positive");
+        boolean existed = comp.get(id) != null;
+        Competition c = comp.open(id, m, capacity != null ? capacity : 0);
+        return ResponseEntity.status(existed ? 200 : 201).body(describe(c));
+    }
+
+    @DeleteMapping("/competitions/{id}")
+    public ResponseEntity<?> removeCompetition(@PathVariable("id") String id) {
+        if (CompetitionService.DEFAULT.equals(id)) return ResponseEntity.badRequest().body("The default competition cannot be removed");
+        if (!comp.remove(id)) return ResponseEntity.notFound().build();
+        cache.evict(id + "/");
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/competitions/{id}/competitors")
+    public ResponseEntity<?> add(@PathVariable("id") String id, @RequestBody Map<String,String> body) {
+        return add(find(id), body);
+    }
+
+    /** Scores in the competition; a request without a mode uses the competition's own. */
+    @PostMapping("/competitions/{id}/score")
+    public ResponseEntity<?> score(@PathVariable("id") String id, @RequestBody ScoreReq r) {
+        return score(find(id), r);
+    }
+
+    @PostMapping(value="/competitions/{id}/score", consumes = CompactFormat.MEDIA_TYPE)
+    public ResponseEntity<byte[]> scoreCompact(@PathVariable("id") String id, InputStream body) throws IOException {
+        return scoreCompact(find(id), body);
+    }
+
+    @PostMapping(value="/competitions/{id}/score/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> scoreBatchJson(@PathVariable("id") String id, InputStream body) throws IOException {
+        return scoreBatchJson(find(id), body, null);
+    }
+
+    @PostMapping(value="/competitions/{id}/score/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> scoreBatch(@PathVariable("id") String id, InputStream body) throws IOException {
+        Competition c = find(id);
+        try (MappingIterator<ScoreReq> items = scoreReqs.readValues(body)) {
+            return scoreBatch(c, items, null);
+        }
+    }
+
+    @GetMapping(value="/competitions/{id}/standings", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> standings(@PathVariable("id") String id, WebRequest request) {
+        return standings(find(id), request, false);
+    }
+
+    @GetMapping(value="/competitions/{id}/standings", produces = CompactFormat.MEDIA_TYPE)
+    public ResponseEntity<byte[]> standingsCompact(@PathVariable("id") String id, WebRequest request) {
+        return standings(find(id), request, true);
+    }
+
+    @GetMapping(value="/competitions/{id}/standings", params="limit")
+    public ResponseEntity<?> standings(@PathVariable("id") String id, @RequestParam("limit") int limit,
+                                       @RequestParam(value="offset", defaultValue="0") int offset) {
+        return page(find(id), offset, limit);
+    }
+
+    @GetMapping("/competitions/{id}/standings/top")
+    public ResponseEntity<?> top(@PathVariable("id") String id, @RequestParam(value="k", defaultValue="10") int k) {
+        return page(find(id), 0, k);
+    }
+
+    @GetMapping("/competitions/{id}/athletes/{name}/rank")
+    public ResponseEntity<?> rank(@PathVariable("id") String id, @PathVariable("name") String name) {
+        return rank(find(id), name);
+    }
+
+    @GetMapping(value="/competitions/{id}/export.csv", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable("id") String id,
+                                                        @RequestParam(value="mode", required=false) String mode,
+                                                        WebRequest request) {
+        return export(find(id), mode, request);
+    }
+
+    @GetMapping(value="/competitions/{id}/export.xlsx", produces = XLSX)
+    public StreamingResponseBody exportXlsx(@PathVariable("id") String id) {
+        return exportXlsx(List.of(find(id)));
     }
 
-    @PostMapping(value="/import.csv", consumes = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<?> importCsv(@RequestBody String csv) {
-        comp.importCsv(csv);
-        return ResponseEntity.ok().build();
+    @PostMapping(value="/competitions/{id}/import.csv", consumes = {MediaType.TEXT_PLAIN_VALUE, "text/csv"})
+    public ResponseEntity<?> importCsv(@PathVariable("id") String id, InputStream body,
+                                       @RequestParam(value="onError", required=false) String onError) throws IOException {
+        return importCsv(find(id), body, onError);
     }
 
-    @GetMapping("/events")
-    public Map<String, ScoringService.EventDef> events(@RequestParam(value = "mode", required = false) String mode) {
+    @PostMapping(value="/competitions/{id}/import.xlsx", consumes = {XLSX, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> importXlsx(@PathVariable("id") String id, InputStream body,
+                                        @RequestParam(value="onError", required=false) String onError) throws IOException {
+        return importXlsx(find(id), body, onError);
+    }
+
+    /** The event definitions of a mode never change while running, so they are served as-is and cached for a day. */
+    @GetMapping(value="/events", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> events(@RequestParam(value = "mode", required = false) String mode, WebRequest request) {
         ScoringService.Mode m;
         try { m = ScoringService.Mode.valueOf(Objects.toString(mode, "DEC").toUpperCase()); }
         catch (Exception e) { m = ScoringService.Mode.DEC; }
-        return scoring.events(m);
+        String tag = eventTags.get(m);
+        if (request.checkNotModified(tag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(EVENTS_CACHE).build();
+        return ResponseEntity.ok().eTag(tag).cacheControl(EVENTS_CACHE).body(events.get(m));
+    }
+
+    private Competition find(String id) {
+        Competition c = comp.get(id);
+        if (c == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown competition " + id);
+        return c;
+    }
+
+    private CompetitionDto describe(Competition c) {
+        return new CompetitionDto(c.id(), c.mode().name(), c.size(), capacity(c));
+    }
+
+    private int capacity(Competition c) {
+        return c.capacity() > 0 ? c.capacity() : capacity;
+    }
+
+    private static ResponseEntity<?> page(Competition c, int offset, int limit) {
+        if (offset < 0 || limit < 1) return ResponseEntity.badRequest().body("offset must be >= 0 and limit >= 1");
+        return ResponseEntity.ok(c.standings(offset, limit));
+    }
+
+    private static ResponseEntity<?> rank(Competition c, String name) {
+        RankedStandingDto r = c.rank(name);
+        return r != null ? ResponseEntity.ok(r) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Adding a name already entered succeeds even when the competition is full. A full competition answers 429 with
+     * a Retry-After, since a place frees up when the field is re-imported.
+     */
+    private ResponseEntity<?> add(Competition c, Map<String,String> body) {
+        String name = Optional.ofNullable(body.get("name")).orElse("").trim();
+        if (name.isEmpty()) return ResponseEntity.badRequest().body("Empty name");
+        if (!c.addCompetitor(name, capacity(c))) return full().body("Too many competitors");
+        return ResponseEntity.status(201).build();
+    }
+
+    /** Scoring an athlete not entered yet enters it, so it is refused like {@link #add} when the competition is full. */
+    private ResponseEntity<?> score(Competition c, ScoreReq r) {
+        if (!c.admit(new String[] { r.name() }, capacity(c))) return full().body("Too many competitors");
+        int pts = c.score(r.name(), r.event(), r.raw(), r.mode());
+        return ResponseEntity.ok(Map.of("points", pts));
+    }
+
+    private ResponseEntity.BodyBuilder full() {
+        return ResponseEntity.status(429).header(HttpHeaders.RETRY_AFTER, fullRetryAfter);
+    }
+
+    /**
+     * Applies the items as one batch. Every item must name an athlete and an event, and all items must share one mode;
+     * items without a mode take {@code defaultMode}, or the competition's mode if that is null. The athletes not
+     * entered yet must all fit in the competition, or nothing is scored.
+     */
+    private ResponseEntity<?> scoreBatch(Competition c, Iterator<ScoreReq> items, String defaultMode) {
+        List<ScoreReq> list = new ArrayList<>();
+        String mode = null;
+        while (items.hasNext()) {
+            ScoreReq r = items.next();
+            if (list.size() == batchMax) return ResponseEntity.status(413).body("More than " + batchMax + " results");
+            if (r == null || r.name() == null || r.event() == null) {
+                return ResponseEntity.badRequest().body("Item " + list.size() + ": missing name or event");
+            }
+            if (r.mode() != null) {
+                if (mode == null) mode = r.mode();
+                else if (!mode.equalsIgnoreCase(r.mode())) {
+                    return ResponseEntity.badRequest().body("Item " + list.size() + ": a batch takes a single mode");
+                }
+            }
+            list.add(r);
+        }
+        int n = list.size();
+        String[] names = new String[n], events = new String[n];
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            ScoreReq r = list.get(i);
+            names[i] = r.name();
+            events[i] = r.event();
+            values[i] = r.raw();
+        }
+        if (!c.admit(names, capacity(c))) return full().body("Too many competitors");
+        int[] points = c.scoreBatch(names, events, values, mode != null ? mode : defaultMode);
+        return ResponseEntity.ok(Map.of("points", points));
+    }
+
+    /**
+     * Applies a JSON array of items as one batch. The items are bound one at a time, like the NDJSON ones, so a batch
+     * over {@code batchMax} is refused without reading the rest of the body.
+     */
+    private ResponseEntity<?> scoreBatchJson(Competition c, InputStream body, String defaultMode) throws IOException {
+        try (JsonParser p = json.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) return ResponseEntity.badRequest().body("Expected a JSON array");
+            if (p.nextToken() == JsonToken.END_ARRAY) return scoreBatch(c, Collections.emptyIterator(), defaultMode);
+            try (MappingIterator<ScoreReq> items = scoreReqs.readValues(p)) {
+                return scoreBatch(c, items, defaultMode);
+            }
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+        } catch (RuntimeException e) {
+            // MappingIterator rethrows what it cannot parse or bind unchecked.
+            if (!(e.getCause() instanceof JsonProcessingException j)) throw e;
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, j.getOriginalMessage());
+        }
+    }
+
+    /**
+     * The standings as JSON, or in the {@link CompactFormat} if {@code compact}, with a strong ETag of the
+     * competition's version. The version is read before the standings, so the body is never older than its tag; a
+     * matching If-None-Match is answered with 304 before any standings are read, and an unchanged competition is
+     * served from the last serialized body.
+     */
+    private ResponseEntity<byte[]> standings(Competition c, WebRequest request, boolean compact) {
+        long version = c.version();
+        String variant = compact ? "compact" : "json";
+        String tag = ResponseCache.etag(version, variant);
+        if (request.checkNotModified(tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        String key = c.id() + "/standings/" + variant;
+        byte[] body = cache.get(key, version);
+        if (body == null) {
+            if (compact) {
+                body = CompactFormat.standings(scoring, c.mode(), c.standings());
+            } else {
+                try { body = json.writeValueAsBytes(c.standings()); }
+                catch (JsonProcessingException e) { throw new IllegalStateException(e); }
+            }
+            cache.put(key, version, body);
+        }
+        return ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    /** Records results sent in the {@link CompactFormat}: one through {@link Competition#score}, more as one batch. */
+    private ResponseEntity<byte[]> scoreCompact(Competition c, InputStream in) throws IOException {
+        CompactFormat.Results r;
+        try { r = CompactFormat.readResults(in.readAllBytes(), batchMax); }
+        catch (CompactFormatException e) { throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()); }
+        String mode = r.mode() != null ? r.mode().name() : null;
+        if (!c.admit(r.names(), capacity(c))) return full().build();
+        int[] points = r.names().length == 1
+                ? new int[] { c.score(r.names()[0], r.events()[0], r.raws()[0], mode) }
+                : c.scoreBatch(r.names(), r.events(), r.raws(), mode);
+        return ResponseEntity.ok().contentType(COMPACT).body(CompactFormat.points(points));
+    }
+
+    /** The CSV export, tagged and cached per mode like {@link #standings(Competition, WebRequest, boolean)}. */
+    private ResponseEntity<StreamingResponseBody> export(Competition c, String mode, WebRequest request) {
+        long version = c.version();
+        ScoringService.Mode m = c.mode();
+        if (mode != null) {
+            try { m = ScoringService.Mode.valueOf(mode.toUpperCase()); } catch (Exception ignored) {}
+        }
+        String tag = ResponseCache.etag(version, "csv-" + m);
+        if (request.checkNotModified(tag)) return notModified(tag);
+        String key = c.id() + "/csv/" + m;
+        byte[] body = cache.get(key, version);
+        String resolved = m.name();
+        StreamingResponseBody stream = body != null ? out -> out.write(body) : out -> {
+            Writer w = new OutputStreamWriter(cache.tee(counting(out), key, version), StandardCharsets.UTF_8);
+            c.exportCsv(resolved, w);
+            w.close();
+        };
+        return ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache()).body(stream);
+    }
+
+    /** Counts what is written into the CSV export bytes; a cached export was counted when it was rendered. */
+    private OutputStream counting(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                exportBytes.increment();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                exportBytes.add(len);
+            }
+        };
+    }
+
+    private static <T> ResponseEntity<T> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    private StreamingResponseBody exportXlsx(List<Competition> competitions) {
+        return out -> {
+            try (ExcelPrinter xlsx = new ExcelPrinter(xlsxWindow)) {
+                for (Competition c : competitions) xlsx.addStandings(c, scoring);
+                xlsx.write(out);
+            }
+        };
+    }
+
+    private ResponseEntity<?> importCsv(Competition c, InputStream body, String onError) throws IOException {
+        CsvReader.ErrorPolicy policy = errorPolicy(onError);
+        if (policy == null) return ResponseEntity.badRequest().body("Unknown onError policy");
+        try {
+            return ResponseEntity.ok(c.importCsv(body, policy));
+        } catch (CsvFormatException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> importXlsx(Competition c, InputStream body, String onError) throws IOException {
+        CsvReader.ErrorPolicy policy = errorPolicy(onError);
+        if (policy == null) return ResponseEntity.badRequest().body("Unknown onError policy");
+        try {
+            return ResponseEntity.ok(new ExcelReader(policy).importInto(c, body));
+        } catch (ExcelFormatException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /** The request's onError policy, the configured one if there is none, or null if it is unknown. */
+    private CsvReader.ErrorPolicy errorPolicy(String onError) {
+        if (onError == null) return importErrorPolicy;
+        try { return CsvReader.ErrorPolicy.valueOf(onError.toUpperCase()); }
+        catch (IllegalArgumentException e) { return null; }
     }
 }
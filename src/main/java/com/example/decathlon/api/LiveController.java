@@ -0,0 +1,33 @@
+package com.example.decathlon.api;
+
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.live.StandingsBroadcaster;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/** Live standings as server-sent events: a {@code snapshot} frame on connect, then {@code delta} frames. */
+@RestController
+@RequestMapping("/com/example/decathlon/api")
+public class LiveController {
+    private final CompetitionService comp;
+    private final StandingsBroadcaster broadcaster;
+
+    public LiveController(CompetitionService comp, StandingsBroadcaster broadcaster) {
+        this.comp = comp;
+        this.broadcaster = broadcaster;
+    }
+
+    @GetMapping(value="/standings/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() { return broadcaster.subscribe(comp.getDefault()); }
+
+    @GetMapping(value="/competitions/{id}/standings/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable("id") String id) {
+        Competition c = comp.get(id);
+        if (c == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown competition " + id);
+        return broadcaster.subscribe(c);
+    }
+}
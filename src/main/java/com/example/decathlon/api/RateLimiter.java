@@ -0,0 +1,76 @@
+package com.example.decathlon.api;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per client, kept as the generic cell rate algorithm: each bucket is the single time at which it would
+ * be full again, so taking a token is one CAS and needs no refill thread. A client may send {@code burst} requests at
+ * once and {@code rate} per second after that. At most {@code maxClients} buckets are tracked: once that many are,
+ * buckets that have filled up again are dropped, at most once per burst window, and a new client that finds no room
+ * is limited as if its bucket were empty.
+ */
+final class RateLimiter {
+    private final long interval;
+    private final long window;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    /** Buckets in the map or about to be put there; never more than {@link #maxClients}. */
+    private final AtomicInteger tracked = new AtomicInteger();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    /** @param rate requests per second per client; 0 or less turns limiting off */
+    RateLimiter(double rate, int burst, int maxClients) {
+        this.interval = rate > 0 ? Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate)) : 0;
+        this.window = interval * Math.max(1, burst);
+        this.maxClients = maxClients;
+    }
+
+    /** Takes a token for the client; returns 0 if it got one, else the nanoseconds until it would. */
+    long acquire(String client) {
+        if (interval == 0) return 0;
+        long now = System.nanoTime();
+        AtomicLong full = buckets.get(client);
+        if (full == null) {
+            full = track(client, now);
+            if (full == null) return window;
+        }
+        for (;;) {
+            long t = full.get();
+            long next = Math.max(t, now) + interval;
+            if (next - now > window) return next - now - window;
+            if (full.compareAndSet(t, next)) return 0;
+        }
+    }
+
+    /** The bucket of a client that has none yet, or null if {@code maxClients} are tracked and none could be dropped. */
+    private AtomicLong track(String client, long now) {
+        if (!reserve()) {
+            sweep(now);
+            if (!reserve()) return null;
+        }
+        AtomicLong fresh = new AtomicLong(now);
+        AtomicLong full = buckets.putIfAbsent(client, fresh);
+        if (full == null) return fresh;
+        tracked.decrementAndGet();
+        return full;
+    }
+
+    private boolean reserve() {
+        for (int n; (n = tracked.get()) < maxClients; ) {
+            if (tracked.compareAndSet(n, n + 1)) return true;
+        }
+        return false;
+    }
+
+    /** Drops the buckets that have filled up again, unless another sweep did so within the last window. */
+    private void sweep(long now) {
+        long last = lastSweep.get();
+        if (now - last < window || !lastSweep.compareAndSet(last, now)) return;
+        buckets.forEach((client, full) -> {
+            if (full.get() - now <= 0 && buckets.remove(client, full)) tracked.decrementAndGet();
+        });
+    }
+}
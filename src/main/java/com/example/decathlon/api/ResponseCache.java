@@ -0,0 +1,105 @@
+package com.example.decathlon.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The last serialized body of each cacheable response (a competition's standings, its CSV export in one mode), tagged
+ * with the {@link com.example.decathlon.core.Competition#version() version} it was rendered at. A write makes the
+ * entry stale simply by advancing the version; stale entries are replaced by the next render. Bodies are bounded in
+ * total: an entry that would exceed the budget drops the others first, and one larger than the budget is not kept.
+ */
+final class ResponseCache {
+    /** Versions start over on every start; the epoch keeps ETags from one run from matching another's. */
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private record Entry(long version, byte[] body) {}
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final long maxBytes;
+
+    ResponseCache(long maxBytes) { this.maxBytes = maxBytes; }
+
+    /** Strong ETag of a response variant rendered at {@code version}. */
+    static String etag(long version, String variant) {
+        return "\"" + EPOCH + "-" + version + "-" + variant + "\"";
+    }
+
+    /** The body cached for {@code key} at {@code version} or later, or null. */
+    byte[] get(String key, long version) {
+        Entry e = entries.get(key);
+        return e != null && e.version() >= version ? e.body() : null;
+    }
+
+    void put(String key, long version, byte[] body) {
+        if (body.length > maxBytes) return;
+        Entry next = new Entry(version, body);
+        Entry prev = entries.get(key);
+        while (prev == null || prev.version() < version) {
+            boolean swapped = prev == null ? entries.putIfAbsent(key, next) == null : entries.replace(key, prev, next);
+            if (swapped) {
+                if (bytes.addAndGet(body.length - (prev == null ? 0 : prev.body().length)) > maxBytes) trim(next);
+                return;
+            }
+            prev = entries.get(key);
+        }
+    }
+
+    /** Drops every entry whose key starts with {@code prefix}, e.g. those of a removed competition. */
+    void evict(String prefix) {
+        for (var e : entries.entrySet()) {
+            if (e.getKey().startsWith(prefix)) remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Wraps {@code out} so that what is written through it is also kept and, if the response completes without
+     * exceeding the budget, cached under {@code key}. Copying stops as soon as the body outgrows the budget.
+     */
+    OutputStream tee(OutputStream out, String key, long version) {
+        return new FilterOutputStream(out) {
+            private ByteArrayOutputStream copy = new ByteArrayOutputStream(8192);
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                if (copy != null) {
+                    copy.write(b);
+                    if (copy.size() > maxBytes) copy = null;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                if (copy != null) {
+                    copy.write(b, off, len);
+                    if (copy.size() > maxBytes) copy = null;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+                if (copy != null) put(key, version, copy.toByteArray());
+                copy = null;
+            }
+        };
+    }
+
+    private void trim(Entry keep) {
+        for (var e : entries.entrySet()) {
+            if (bytes.get() <= maxBytes) return;
+            if (e.getValue() != keep) remove(e.getKey(), e.getValue());
+        }
+    }
+
+    private void remove(String key, Entry e) {
+        if (entries.remove(key, e)) bytes.addAndGet(-e.body().length);
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.decathlon.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent athlete/result store with columnar primitive storage. Each athlete gets an int id in insertion order;
+ * results live in chunks of {@value #CHUNK} athletes, one {@code double} column per {@link ScoringService.Event}
+ * ordinal, with NaN for a missing result. Where the chunks live is up to its {@link Columns}: on the heap by default,
+ * or off-heap in a mapped file. Names map to athletes through a {@link ConcurrentHashMap}. Every result is written and
+ * read with release/acquire semantics, so writers for different athletes never contend and a reader sees each value
+ * either whole or not at all. Results for ids no mode knows are not stored; they would score 0 anyway.
+ */
+public class AthleteStore {
+    public static final int CHUNK = 256;
+    public static final int EVENTS = ScoringService.Event.values().length;
+    private static final VarHandle ATHLETES = MethodHandles.arrayElementVarHandle(Athlete[].class);
+
+    /**
+     * The results of {@value #CHUNK} consecutive athlete ids: index {@code event * CHUNK + slot}, NaN if missing.
+     * Implementations must give {@link #get} acquire and {@link #set} release semantics.
+     */
+    public abstract static class Chunk {
+        protected abstract double get(int index);
+
+        protected abstract void set(int index, double value);
+    }
+
+    /** Backing storage for the result chunks. */
+    public interface Columns {
+        /** Chunk {@code c}, created with every result missing on first use; safe to call from any thread. */
+        Chunk chunk(int c);
+
+        /** Called once the store no longer uses these columns, e.g. after {@link #replaceWith} or an abandoned import. */
+        default void release() {}
+    }
+
+    public static final class Athlete {
+        private final String name;
+        private final int id;
+        private final Chunk chunk;
+        private final int slot;
+
+        Athlete(String name, int id, Chunk chunk) {
+            this.name = name;
+            this.id = id;
+            this.chunk = chunk;
+            this.slot = id % CHUNK;
+        }
+
+        public String name() { return name; }
+
+        /** Insertion sequence number, used to break ties in rank order. */
+        public long seq() { return id; }
+
+        /** The raw performance for {@code event}, or NaN if there is none. */
+        public double result(ScoringService.Event event) {
+            return chunk.get(event.ordinal() * CHUNK + slot);
+        }
+
+        /** The raw performance for the event id, or NaN if there is none or no mode knows the id. */
+        public double result(String eventId) {
+            ScoringService.Event e = ScoringService.Event.of(eventId);
+            return e == null ? Double.NaN : result(e);
+        }
+
+        /** A copy of all results keyed by event id; allocates, so hot paths use {@link #result(ScoringService.Event)}. */
+        public Map<String, Double> results() {
+            Map<String, Double> m = new LinkedHashMap<>();
+            for (ScoringService.Event e : ScoringService.Event.values()) {
+                double v = result(e);
+                if (!Double.isNaN(v)) m.put(e.id(), v);
+            }
+            return Collections.unmodifiableMap(m);
+        }
+
+        void put(String event, double value) {
+            ScoringService.Event e = ScoringService.Event.of(event);
+            if (e != null) put(e, value);
+        }
+
+        void put(ScoringService.Event event, double value) {
+            chunk.set(event.ordinal() * CHUNK + slot, value);
+        }
+
+        /**
+         * Records {@code values[offset + i]} for {@code events[i]}; NaN values and null events are skipped. Each value
+         * becomes visible on its own, so this is for athletes not yet visible to readers, such as an import's staging.
+         */
+        void putAll(ScoringService.Event[] events, double[] values, int offset) {
+            for (int i = 0; i < events.length; i++) {
+                double v = values[offset + i];
+                if (events[i] != null && !Double.isNaN(v)) put(events[i], v);
+            }
+        }
+    }
+
+    /** Chunks in heap arrays. */
+    private static final class HeapColumns implements Columns {
+        private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(double[].class);
+
+        private static final class HeapChunk extends Chunk {
+            final double[] values = new double[EVENTS * CHUNK];
+
+            HeapChunk() { Arrays.fill(values, Double.NaN); }
+
+            @Override
+            protected double get(int index) { return (double) VALUES.getAcquire(values, index); }
+
+            @Override
+            protected void set(int index, double value) { VALUES.setRelease(values, index, value); }
+        }
+
+        /** Grows one chunk at a time, by copy, under {@link #grow}; a published array is never written again. */
+        private volatile HeapChunk[] chunks = new HeapChunk[0];
+        private final ReentrantLock grow = new ReentrantLock();
+
+        @Override
+        public Chunk chunk(int c) {
+            HeapChunk[] cs = chunks;
+            if (c < cs.length) return cs[c];
+            grow.lock();
+            try {
+                cs = chunks;
+                if (c < cs.length) return cs[c];
+                HeapChunk[] next = Arrays.copyOf(cs, c + 1);
+                for (int i = cs.length; i < next.length; i++) next[i] = new HeapChunk();
+                chunks = next;
+                return next[c];
+            } finally {
+                grow.unlock();
+            }
+        }
+    }
+
+    private static final class Table {
+        final Columns columns;
+        final ConcurrentHashMap<String, Athlete> byName = new ConcurrentHashMap<>();
+        final AtomicLong seq = new AtomicLong();
+        /** Athletes by id, {@value #CHUNK} per block; grows like the heap columns. */
+        volatile Athlete[][] byId = new Athlete[0][];
+        final ReentrantLock grow = new ReentrantLock();
+
+        Table(Columns columns) { this.columns = columns; }
+
+        Athlete[] block(int b) {
+            Athlete[][] bs = byId;
+            if (b < bs.length) return bs[b];
+            grow.lock();
+            try {
+                bs = byId;
+                if (b < bs.length) return bs[b];
+                Athlete[][] next = Arrays.copyOf(bs, b + 1);
+                for (int i = bs.length; i < next.length; i++) next[i] = new Athlete[CHUNK];
+                byId = next;
+                return next[b];
+            } finally {
+                grow.unlock();
+            }
+        }
+
+        Athlete byId(int id) {
+            Athlete[][] bs = byId;
+            return id / CHUNK < bs.length ? (Athlete) ATHLETES.getAcquire(bs[id / CHUNK], id % CHUNK) : null;
+        }
+
+        Athlete create(String name, int id) {
+            Athlete a = new Athlete(name, id, columns.chunk(id / CHUNK));
+            ATHLETES.setRelease(block(id / CHUNK), id % CHUNK, a);
+            return a;
+        }
+    }
+
+    private volatile Table table;
+
+    public AthleteStore() { this(new HeapColumns(), new String[0]); }
+
+    /**
+     * A store over existing columns whose ids {@code 0 .. names.length - 1} belong to {@code names}, e.g. results
+     * mapped back in from disk.
+     */
+    public AthleteStore(Columns columns, String[] names) {
+        Table t = new Table(columns);
+        for (int id = 0; id < names.length; id++) t.byName.put(names[id], t.create(names[id], id));
+        t.seq.set(names.length);
+        table = t;
+    }
+
+    /** The columns holding the results right now; changes on {@link #replaceWith}. */
+    public Columns columns() { return table.columns; }
+
+    /**
+     * A store sharing this one's current athletes and columns; it keeps them when this store is replaced or cleared,
+     * e.g. so a checkpoint reads names and results of the same generation.
+     */
+    public AthleteStore view() { return new AthleteStore(table); }
+
+    private AthleteStore(Table table) { this.table = table; }
+
+    public Athlete add(String name) { return add(name, Integer.MAX_VALUE); }
+
+    /**
+     * Adds the athlete unless the store already holds {@code limit} others. The id is reserved with a CAS on the
+     * athlete count, so concurrent adds never overshoot the limit.
+     *
+     * @return the athlete, existing or new, or null if the store is full
+     */
+    public Athlete add(String name, int limit) {
+        Table t = table;
+        Athlete existing = t.byName.get(name);
+        if (existing != null) return existing;
+        return t.byName.computeIfAbsent(name, n -> {
+            long s;
+            do {
+                s = t.seq.get();
+                if (s >= limit) return null;
+            } while (!t.seq.compareAndSet(s, s + 1));
+            return t.create(n, (int) s);
+        });
+    }
+
+    public Athlete get(String name) { return table.byName.get(name); }
+
+    /** The athlete with this id, or null if the id is unused or its athlete is still being added. */
+    public Athlete get(int id) { return table.byId(id); }
+
+    public Athlete put(String name, String event, double value) {
+        Athlete a = add(name);
+        a.put(event, value);
+        return a;
+    }
+
+    /**
+     * Athletes in id order; weakly consistent with concurrent adds, which may be missed if their id was reserved but
+     * not yet filled in.
+     */
+    public Iterable<Athlete> athletes() {
+        Table t = table;
+        return () -> new Iterator<>() {
+            private final long end = t.seq.get();
+            private int id;
+            private Athlete next = advance();
+
+            private Athlete advance() {
+                while (id < end) {
+                    Athlete a = t.byId(id++);
+                    if (a != null) return a;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() { return next != null; }
+
+            @Override
+            public Athlete next() {
+                if (next == null) throw new NoSuchElementException();
+                Athlete a = next;
+                next = advance();
+                return a;
+            }
+        };
+    }
+
+    /** Number of athletes; exact and O(1), as every insert takes one sequence number. */
+    public int size() { return (int) table.seq.get(); }
+
+    /** Bytes of result columns the athletes occupy: whole chunks of {@value #CHUNK}, wherever they live. */
+    public long bytes() { return (long) ((size() + CHUNK - 1) / CHUNK) * CHUNK * EVENTS * Double.BYTES; }
+
+    /** Empties the store; the new, empty columns are on the heap. */
+    public void clear() { swap(new Table(new HeapColumns())); }
+
+    /** Makes this store hold exactly what {@code other} holds, as one atomic switch, and releases the old columns. */
+    public void replaceWith(AthleteStore other) { swap(other.table); }
+
+    /** Releases the columns of a store that will not be used again. */
+    public void release() { table.columns.release(); }
+
+    private void swap(Table next) {
+        Table old = table;
+        table = next;
+        if (old.columns != next.columns) old.columns.release();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.decathlon.core;
+
+import java.util.function.Supplier;
+
+/**
+ * Receives every state change of {@link CompetitionService} and its competitions before it becomes visible. Callers
+ * order changes: two changes that do not commute are appended while holding a lock they share, so their {@code apply}
+ * runs in the same order the operations are recorded and replaying the record rebuilds the same state. Changes that
+ * commute, such as results of different athletes, may be appended concurrently.
+ */
+public interface ChangeLog {
+    ChangeLog NONE = new ChangeLog() {};
+
+    /** A change to one competition, identified by its id. */
+    sealed interface Op { String competition(); }
+    /** {@code capacity} 0 means the configured default. */
+    record Open(String competition, ScoringService.Mode mode, int capacity) implements Op {}
+    record Remove(String competition) implements Op {}
+    /** Adds the athlete if the competition holds fewer than {@code limit}; replay reaches the same decision. */
+    record Add(String competition, String name, int limit) implements Op {}
+    record Score(String competition, String name, String event, ScoringService.Mode mode, double value) implements Op {}
+    /** Result {@code i} is {@code values[i]} for {@code events[i]} of {@code names[i]}. */
+    record ScoreBatch(String competition, String[] names, String[] events, ScoringService.Mode mode, double[] values)
+            implements Op {}
+    record ImportBegin(String competition, long id, ScoringService.Mode mode, String[] events) implements Op {}
+    /** {@code n} rows; row {@code i} is {@code names[i]} with {@code values[i * events + j]} per event, NaN if missing. */
+    record ImportRows(String competition, long id, String[] names, double[] values, int n) implements Op {}
+    record ImportCommit(String competition, long id) implements Op {}
+    record ImportAbort(String competition, long id) implements Op {}
+
+    /** A change {@link #record recorded} but maybe not durable yet: the result of its {@code apply} and its LSN. */
+    record Recorded<T>(T result, long lsn) {}
+
+    /** Records {@code op} and runs {@code apply}, returning its result once the record is durable. */
+    default <T> T append(Op op, Supplier<T> apply) {
+        Recorded<T> r = record(op, apply);
+        awaitDurable(r.lsn());
+        return r.result();
+    }
+
+    /**
+     * Records {@code op} and runs {@code apply} without waiting for the record to become durable; called holding the
+     * lock that orders it. Release that lock before {@link #awaitDurable}, so changes ordered by the same lock still
+     * share a flush.
+     */
+    default <T> Recorded<T> record(Op op, Supplier<T> apply) { return new Recorded<>(apply.get(), 0); }
+
+    /** Waits until the record with this LSN is as durable as the log promises. */
+    default void awaitDurable(long lsn) {}
+}
@@ -0,0 +1,534 @@
+package com.example.decathlon.core;
+
+import com.example.decathlon.csv.CsvFormatException;
+import com.example.decathlon.csv.CsvReader;
+import com.example.decathlon.csv.CsvWriter;
+import com.example.decathlon.dto.ImportReport;
+import com.example.decathlon.dto.RankedStandingDto;
+import com.example.decathlon.dto.StandingDto;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * One meet: its mode, athletes and standings. Each competition is its own lock domain; changes to one never wait
+ * on another. Obtained from {@link CompetitionService}.
+ */
+public class Competition {
+    private static final int IMPORT_BATCH = 1024;
+    private static final int STRIPES = 64;
+
+    private final String id;
+    private final CompetitionService owner;
+    private final ScoringService scoring;
+    private final AthleteStore raw;
+    private final StandingsIndex index;
+    /**
+     * Serializes mode switches, batches, new athletes and import commits. A lock rather than a monitor, so a virtual
+     * thread that waits for the journal while holding it does not pin its carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Order the changes to the athletes hashed to each stripe, so one athlete's results reach the change log in the
+     * order they apply while different athletes rarely wait for each other. Taken after {@link #lock}, in index order;
+     * mode switches and import commits take them all.
+     */
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final int capacity;
+    private volatile ScoringService.Mode currentMode;
+    /** Set when a change bypassed the standings during recovery; {@link #reindex()} only rescores stale competitions. */
+    private volatile boolean stale;
+    /** The service-wide version of the last change made visible here; only ever grows. */
+    private final AtomicLong version = new AtomicLong();
+
+    Competition(String id, ScoringService.Mode mode, int capacity, CompetitionService owner, ScoringService scoring,
+                AthleteStore store) {
+        this.id = id;
+        this.currentMode = mode;
+        this.capacity = capacity;
+        this.owner = owner;
+        this.scoring = scoring;
+        this.raw = store;
+        this.index = new StandingsIndex(scoring);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+        if (!deferred()) rescore(mode);
+        changed();
+    }
+
+    /**
+     * Version of the competition's visible state, e.g. for an ETag: taken from a counter shared by all competitions of
+     * the service and advanced after every change is visible, so a value read before reading the state never
+     * describes newer state than was read.
+     */
+    public long version() { return version.get(); }
+
+    private void changed() { version.accumulateAndGet(owner.nextVersion(), Math::max); }
+
+    /** Rescores every athlete in {@code mode} into the standings; called holding the lock and every stripe. */
+    private void rescore(ScoringService.Mode mode) {
+        owner.instruments().rescore.time(() -> index.rebuild(raw.athletes(), mode, owner.rescoring()));
+    }
+
+    /** True while recovering, in which case the standings are left for {@link #reindex()}. */
+    private boolean deferred() {
+        if (!owner.recovering()) return false;
+        stale = true;
+        return true;
+    }
+
+    AthleteStore store() { return raw; }
+
+    public String id() { return id; }
+
+    public ScoringService.Mode mode() { return currentMode; }
+
+    /** Athletes in insertion order; weakly consistent with concurrent changes. */
+    public Iterable<AthleteStore.Athlete> athletes() { return raw.athletes(); }
+
+    /** The athlete with this name, or null. */
+    public AthleteStore.Athlete athlete(String name) { return raw.get(name); }
+
+    /** Number of athletes, in O(1). */
+    public int size() { return raw.size(); }
+
+    /** Most athletes admitted through {@link #addCompetitor(String, int)}, or 0 for the configured default. */
+    public int capacity() { return capacity; }
+
+    public void addCompetitor(String name) { addCompetitor(name, Integer.MAX_VALUE); }
+
+    /**
+     * Adds the athlete unless the competition already holds {@code limit} others.
+     *
+     * @return false if the competition is full
+     */
+    public boolean addCompetitor(String name, int limit) {
+        if (raw.size() >= limit && raw.get(name) == null) return false;
+        ChangeLog.Recorded<AthleteStore.Athlete> r;
+        lock.lock();
+        try {
+            r = owner.log().record(new ChangeLog.Add(id, name, limit), () -> raw.add(name, limit));
+        } finally {
+            lock.unlock();
+        }
+        owner.log().awaitDurable(r.lsn());
+        AthleteStore.Athlete a = r.result();
+        if (a == null) return false;
+        if (!deferred()) {
+            index.refresh(a);
+            owner.listener().changed(this, name, null);
+        }
+        changed();
+        return true;
+    }
+
+    /**
+     * Adds those of the athletes not entered yet, unless they do not all fit under {@code limit}. Scoring an unknown
+     * athlete would add it past any limit, so callers that enforce one admit the names first. The fit is checked for
+     * all of them up front; only an add that loses a race for the last places leaves the earlier ones entered.
+     *
+     * @return false if the competition is full
+     */
+    public boolean admit(String[] names, int limit) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String name : names) {
+            if (raw.get(name) == null) missing.add(name);
+        }
+        if (missing.isEmpty()) return true;
+        if (raw.size() + missing.size() > limit) return false;
+        for (String name : missing) {
+            if (!addCompetitor(name, limit)) return false;
+        }
+        return true;
+    }
+
+    /** Records a result; {@code modeStr} switches the competition's mode, null keeps it and unknown means DEC. */
+    public int score(String name, String event, double value, String modeStr) {
+        ScoringService.Mode mode = parseMode(modeStr);
+        owner.instruments().score.time(() -> {
+            var a = ordered(name, mode, () -> owner.log().record(new ChangeLog.Score(id, name, event, mode, value),
+                    () -> raw.put(name, event, value)));
+            if (!deferred()) {
+                index.update(a, event);
+                owner.listener().changed(this, name, event);
+            }
+            changed();
+            return a;
+        }, (jfr, a) -> jfr.end(id, mode.name(), event, 1, raw.size()));
+        owner.instruments().result(mode, event);
+        return scoring.score(mode, event, value);
+    }
+
+    /**
+     * Records result {@code i} as {@code values[i]} for {@code events[i]} of {@code names[i]}, all in one mode. The
+     * batch is one journal record and one standings update, so it becomes visible and durable as a whole.
+     *
+     * @return the points of each result
+     */
+    public int[] scoreBatch(String[] names, String[] events, double[] values, String modeStr) {
+        if (names.length == 0) return new int[0];
+        ScoringService.Mode mode = parseMode(modeStr);
+        Instruments ins = owner.instruments();
+        return ins.scoreBatch.time(() -> {
+            ChangeLog.Recorded<AthleteStore.Athlete[]> r;
+            lock.lock();
+            try {
+                boolean[] held = lockStripes(inMode(mode) ? names : null);
+                try {
+                    switchMode(mode);
+                    r = owner.log().record(new ChangeLog.ScoreBatch(id, names, events, mode, values), () -> {
+                        var athletes = new AthleteStore.Athlete[names.length];
+                        for (int i = 0; i < names.length; i++) athletes[i] = raw.put(names[i], events[i], values[i]);
+                        return athletes;
+                    });
+                } finally {
+                    unlockStripes(held);
+                }
+                if (!deferred()) {
+                    index.updateAll(r.result(), events);
+                    StandingsListener l = owner.listener();
+                    for (int i = 0; i < names.length; i++) l.changed(this, names[i], events[i]);
+                }
+                changed();
+            } finally {
+                lock.unlock();
+            }
+            owner.log().awaitDurable(r.lsn());
+            int[] points = new int[names.length];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = scoring.score(mode, events[i], values[i]);
+                ins.result(mode, events[i]);
+            }
+            return points;
+        }, (jfr, points) -> jfr.end(id, mode.name(), null, names.length, raw.size()));
+    }
+
+    public List<StandingDto> standings() {
+        return owner.instruments().standings.time(index::snapshot,
+                (jfr, rows) -> jfr.end(id, currentMode.name(), rows.size()));
+    }
+
+    /** One athlete's standings row without building a snapshot, or null if there is no such athlete. */
+    public StandingDto standing(String name) { return index.row(name); }
+
+    /**
+     * Up to {@code limit} standings rows with their ranks, from the 0-based rank position {@code offset}; found in
+     * O(log n) without building a snapshot.
+     */
+    public List<RankedStandingDto> standings(int offset, int limit) { return index.page(offset, limit); }
+
+    /** The {@code k} best rows with their ranks. */
+    public List<RankedStandingDto> top(int k) { return index.page(0, k); }
+
+    /** One athlete's row with its competition rank, or null if there is no such athlete; O(log n). */
+    public RankedStandingDto rank(String name) { return index.ranked(name); }
+
+    private ScoringService.Mode parseMode(String modeStr) {
+        if (modeStr == null) return currentMode;
+        try { return ScoringService.Mode.valueOf(modeStr.toUpperCase()); }
+        catch (Exception e) { return ScoringService.Mode.DEC; }
+    }
+
+    /**
+     * Records {@code change}, a result of {@code name} in {@code mode}, under the locks that order it against the
+     * changes it does not commute with: the athlete's stripe while the athlete exists and the mode stays, the
+     * competition lock too if it adds the athlete, and every stripe if it switches the mode. Waits for the record to
+     * become durable only after releasing them.
+     */
+    private <T> T ordered(String name, ScoringService.Mode mode, Supplier<ChangeLog.Recorded<T>> change) {
+        ChangeLog.Recorded<T> r = null;
+        ReentrantLock stripe = stripes[stripe(name)];
+        stripe.lock();
+        try {
+            if (inMode(mode) && raw.get(name) != null) r = change.get();
+        } finally {
+            stripe.unlock();
+        }
+        if (r == null) {
+            lock.lock();
+            try {
+                boolean[] held = lockStripes(inMode(mode) ? new String[] {name} : null);
+                try {
+                    switchMode(mode);
+                    r = change.get();
+                } finally {
+                    unlockStripes(held);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        owner.log().awaitDurable(r.lsn());
+        return r.result();
+    }
+
+    private static int stripe(String name) {
+        int h = name.hashCode();
+        return (h ^ h >>> 16) & (STRIPES - 1);
+    }
+
+    /** Locks the stripes of {@code names}, or every stripe if null, in index order; returns which were locked. */
+    private boolean[] lockStripes(String[] names) {
+        boolean[] held = new boolean[STRIPES];
+        if (names == null) Arrays.fill(held, true);
+        else for (String n : names) held[stripe(n)] = true;
+        for (int i = 0; i < STRIPES; i++) {
+            if (held[i]) stripes[i].lock();
+        }
+        return held;
+    }
+
+    private void unlockStripes(boolean[] held) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            if (held[i]) stripes[i].unlock();
+        }
+    }
+
+    private boolean inMode(ScoringService.Mode mode) {
+        return currentMode == mode && (owner.recovering() || index.mode() == mode);
+    }
+
+    /** Switches to {@code mode} unless the competition is in it; called holding the lock and every stripe. */
+    private void switchMode(ScoringService.Mode mode) {
+        if (deferred()) {
+            currentMode = mode;
+            return;
+        }
+        if (inMode(mode)) return;
+        currentMode = mode;
+        rescore(mode);
+        changed();
+        owner.listener().reset(this);
+    }
+
+    /** Rescores every athlete once after a replay or load that bypassed the standings. */
+    void reindex() {
+        if (!stale) return;
+        lock.lock();
+        try {
+            boolean[] held = lockStripes(null);
+            try {
+                stale = false;
+                rescore(currentMode);
+            } finally {
+                unlockStripes(held);
+            }
+            changed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String exportCsv(String modeOpt) {
+        StringWriter out = new StringWriter();
+        try { exportCsv(modeOpt, out); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+        return out.toString();
+    }
+
+    /** Streams the CSV to {@code out} row by row; memory use does not depend on the number of athletes. */
+    public void exportCsv(String modeOpt, Writer out) throws IOException {
+        ScoringService.Mode mode = currentMode;
+        if (modeOpt != null) {
+            try { mode = ScoringService.Mode.valueOf(modeOpt.toUpperCase()); } catch (Exception ignored) {}
+        }
+        ScoringService.Mode m = mode;
+        CsvWriter w = new CsvWriter(out);
+        Instruments ins = owner.instruments();
+        ins.exportCsv.time(() -> writeCsv(m, w), (jfr, rows) -> jfr.end(id, m.name(), rows, w.written()));
+    }
+
+    /** @return the number of athlete rows written */
+    private long writeCsv(ScoringService.Mode m, CsvWriter w) throws IOException {
+        w.raw("MODE,").raw(m.name()).newline();
+        List<String> ids = new ArrayList<>(scoring.events(m).keySet());
+        ScoringService.Event[] events = new ScoringService.Event[ids.size()];
+        w.raw("Name");
+        for (int i = 0; i < events.length; i++) {
+            events[i] = ScoringService.Event.of(ids.get(i));
+            w.comma().raw(ids.get(i));
+        }
+        w.raw(",Total").newline();
+        long rows = 0;
+        for (var a : raw.athletes()) {
+            rows++;
+            int total = 0;
+            w.field(a.name());
+            for (int i = 0; i < events.length; i++) {
+                w.comma();
+                double v = a.result(events[i]);
+                if (!Double.isNaN(v)) {
+                    w.number(v);
+                    total += scoring.score(m, events[i], v);
+                }
+            }
+            w.comma().number(total).newline();
+        }
+        w.flush();
+        owner.instruments().exportRows.add(rows);
+        return rows;
+    }
+
+    public ImportReport importCsv(String csv) {
+        if (csv == null) return ImportReport.EMPTY;
+        try (CsvReader in = CsvReader.of(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)))) {
+            return importCsv(in, CsvReader.ErrorPolicy.SKIP);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ImportReport importCsv(InputStream in, CsvReader.ErrorPolicy policy) throws IOException {
+        try (CsvReader r = CsvReader.of(in)) { return importCsv(r, policy); }
+    }
+
+    /** Imports a file through a memory mapping, so large result files are never copied onto the heap. */
+    public ImportReport importCsv(Path file, CsvReader.ErrorPolicy policy) throws IOException {
+        try (CsvReader r = CsvReader.map(file)) { return importCsv(r, policy); }
+    }
+
+    /**
+     * Replaces all athletes with the contents of a {@code MODE,...} / {@code Name,...} CSV. Rows are parsed into a
+     * batch buffer and applied to a staging store a batch at a time; the staging store replaces the live one only once
+     * the whole input has been read, so readers never see a half-imported field and a failed import changes nothing.
+     *
+     * @throws CsvFormatException under {@link CsvReader.ErrorPolicy#FAIL} for the first malformed header, name or value
+     */
+    public ImportReport importCsv(CsvReader in, CsvReader.ErrorPolicy policy) throws IOException {
+        return owner.instruments().importCsv.time(() -> readCsv(in, policy),
+                (jfr, report) -> jfr.end(id, currentMode.name(), report.rows(), report.skipped(), report.bytes()));
+    }
+
+    private ImportReport readCsv(CsvReader in, CsvReader.ErrorPolicy policy) throws IOException {
+        long started = System.nanoTime();
+        if (!in.next() || !"MODE".equals(in.string(0))) return reject(policy, in, "missing MODE header");
+        ScoringService.Mode mode = currentMode;
+        try { mode = ScoringService.Mode.valueOf(in.string(1).toUpperCase()); }
+        catch (Exception e) { if (policy == CsvReader.ErrorPolicy.FAIL) throw new CsvFormatException(in.line(), "unknown mode " + in.string(1)); }
+        if (!in.next() || in.fields() < 2 || !"Name".equals(in.string(0))) return reject(policy, in, "bad header");
+        List<String> cols = new ArrayList<>();
+        for (int i = 1; i < in.fields(); i++) {
+            String col = in.string(i);
+            if ("Total".equalsIgnoreCase(col)) break;
+            cols.add(col);
+        }
+        String[] ids = cols.toArray(new String[0]);
+
+        String[] names = new String[IMPORT_BATCH];
+        double[] values = new double[IMPORT_BATCH * ids.length];
+        int batched = 0;
+        long rows = 0, skipped = 0;
+        try (Import imp = beginImport(mode, ids)) {
+            while (in.next()) {
+                if (in.isBlankLine()) continue;
+                String name = in.string(0);
+                if (name.isEmpty()) {
+                    if (policy == CsvReader.ErrorPolicy.FAIL) throw new CsvFormatException(in.line(), "missing name");
+                    skipped++;
+                    continue;
+                }
+                int off = batched * ids.length;
+                for (int j = 0; j < ids.length; j++) {
+                    double v = Double.NaN;
+                    try { v = in.number(j + 1); }
+                    catch (NumberFormatException e) {
+                        if (policy == CsvReader.ErrorPolicy.FAIL) throw new CsvFormatException(in.line(), "bad value for " + ids[j]);
+                    }
+                    values[off + j] = v;
+                }
+                names[batched++] = name;
+                if (batched == IMPORT_BATCH) {
+                    imp.add(names, values, batched);
+                    batched = 0;
+                }
+                rows++;
+            }
+            imp.add(names, values, batched);
+            imp.commit();
+        }
+        Instruments ins = owner.instruments();
+        ins.importRows.add(rows);
+        ins.importBytes.add(in.bytes());
+        return ImportReport.of(rows, skipped, in.bytes(), System.nanoTime() - started);
+    }
+
+    /** Starts a bulk replacement of all athletes; nothing is visible until {@link Import#commit()}. */
+    public Import beginImport(ScoringService.Mode mode, String[] events) {
+        return new Import(ThreadLocalRandom.current().nextLong(), mode, events.clone());
+    }
+
+    /**
+     * Rows staged for a bulk replacement. Batches go into a private store, so a failed or abandoned import changes
+     * nothing; {@link #commit()} swaps the staged athletes in at once and rescores them.
+     */
+    public final class Import implements AutoCloseable {
+        private final long importId;
+        private final ScoringService.Mode mode;
+        private final String[] events;
+        private final ScoringService.Event[] columns;
+        private final AthleteStore staging = owner.storage().create(id);
+        private boolean done;
+
+        private Import(long importId, ScoringService.Mode mode, String[] events) {
+            this.importId = importId;
+            this.mode = mode;
+            this.events = events;
+            this.columns = new ScoringService.Event[events.length];
+            for (int i = 0; i < events.length; i++) columns[i] = ScoringService.Event.of(events[i]);
+            owner.log().append(new ChangeLog.ImportBegin(id, importId, mode, events), () -> null);
+        }
+
+        /** Stages {@code n} rows; row {@code i} is {@code names[i]} with {@code values[i * events + j]}, NaN if missing. */
+        public void add(String[] names, double[] values, int n) {
+            if (n == 0) return;
+            owner.log().append(new ChangeLog.ImportRows(id, importId, names, values, n), () -> null);
+            for (int i = 0; i < n; i++) staging.add(names[i]).putAll(columns, values, i * events.length);
+        }
+
+        public void commit() {
+            long lsn;
+            lock.lock();
+            try {
+                boolean live;
+                boolean[] held = lockStripes(null);
+                try {
+                    lsn = owner.log().record(new ChangeLog.ImportCommit(id, importId), () -> {
+                        raw.replaceWith(staging);
+                        currentMode = mode;
+                        return null;
+                    }).lsn();
+                    done = true;
+                    live = !deferred();
+                    if (live) rescore(mode);
+                } finally {
+                    unlockStripes(held);
+                }
+                if (live) owner.listener().reset(Competition.this);
+                changed();
+            } finally {
+                lock.unlock();
+            }
+            owner.log().awaitDurable(lsn);
+        }
+
+        /** Abandons the import unless it was committed. */
+        @Override
+        public void close() {
+            if (done) return;
+            done = true;
+            owner.log().append(new ChangeLog.ImportAbort(id, importId), () -> null);
+            staging.release();
+        }
+    }
+
+    private static ImportReport reject(CsvReader.ErrorPolicy policy, CsvReader in, String message) {
+        if (policy == CsvReader.ErrorPolicy.FAIL) throw new CsvFormatException(in.line(), message);
+        return ImportReport.EMPTY;
+    }
+}
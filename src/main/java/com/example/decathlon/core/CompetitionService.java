@@ -1,163 +1,204 @@
 package com.example.decathlon.core;
 
+import com.example.decathlon.csv.CsvReader;
+import com.example.decathlon.dto.ImportReport;
+import com.example.decathlon.dto.StandingDto;
+import com.example.decathlon.metrics.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.util.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registry of competitions keyed by id. The legacy single-competition methods act on {@link #DEFAULT}, which always
+ * exists. Competitions share nothing but the scoring tables and the change log, so separate meets never contend.
+ */
 @Service
 public class CompetitionService {
+    public static final String DEFAULT = "default";
+
     private final ScoringService scoring;
-    private final Map<String, Map<String, Double>> raw = new LinkedHashMap<>();
-    private ScoringService.Mode currentMode = ScoringService.Mode.DEC;
+    private final ResultStorage storage;
+    private final Rescoring rescoring;
+    private final ConcurrentHashMap<String, Competition> competitions = new ConcurrentHashMap<>();
+    private final Competition defaultCompetition;
+    /** Orders creation and removal of competitions; never held while a competition changes. */
+    private final ReentrantLock registryLock = new ReentrantLock();
+    private volatile ChangeLog log = ChangeLog.NONE;
+    private volatile StandingsListener listener = StandingsListener.NONE;
+    private volatile Instruments instruments = Instruments.OFF;
+    private volatile boolean recovering;
+    /** Source of {@link Competition#version()}s; advanced by every change to any competition. */
+    private final AtomicLong versions = new AtomicLong();
 
-    public CompetitionService(ScoringService scoring) { this.scoring = scoring; }
+    public CompetitionService(ScoringService scoring) { this(scoring, ResultStorage.HEAP, Rescoring.SEQUENTIAL); }
 
-    public void addCompetitor(String name) { raw.putIfAbsent(name, new LinkedHashMap<>()); }
+    /**
+     * Starts with the competitions {@code storage} kept at its last checkpoint, if any, and rescores fields through
+     * {@code rescoring}.
+     */
+    @Autowired
+    public CompetitionService(ScoringService scoring, ResultStorage storage, Rescoring rescoring) {
+        this.scoring = scoring;
+        this.storage = storage;
+        this.rescoring = rescoring;
+        beginRecovery();
+        try {
+            for (ResultStorage.Stored s : storage.load()) {
+                competitions.put(s.id(), new Competition(s.id(), s.mode(), s.capacity(), this, scoring, s.store()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            endRecovery();
+        }
+        Competition d = competitions.get(DEFAULT);
+        if (d == null) {
+            d = new Competition(DEFAULT, ScoringService.Mode.DEC, 0, this, scoring, storage.create(DEFAULT));
+            competitions.put(DEFAULT, d);
+        }
+        this.defaultCompetition = d;
+    }
 
-    public int score(String name, String event, double value) { return score(name, event, value, "DEC"); }
+    public ResultStorage storage() { return storage; }
 
-    public int score(String name, String event, double value, String modeStr) {
-        ScoringService.Mode mode;
-        try { mode = ScoringService.Mode.valueOf(modeStr.toUpperCase()); }
-        catch (Exception e) { mode = ScoringService.Mode.DEC; }
-        currentMode = mode;
-        addCompetitor(name);
-        raw.get(name).put(event, value);
-        return scoring.score(mode, event, value);
-    }
+    Rescoring rescoring() { return rescoring; }
 
-    public List<Map<String,Object>> standings() {
-        List<Map<String,Object>> list = new ArrayList<>();
-        for (var e : raw.entrySet()) {
-            String name = e.getKey();
-            Map<String, Double> r = e.getValue();
-            Map<String, Integer> pts = new LinkedHashMap<>();
-            int total = 0;
-            for (var id : scoring.events(currentMode).keySet()) {
-                Double v = r.get(id);
-                if (v != null) {
-                    int p = scoring.score(currentMode, id, v);
-                    pts.put(id, p);
-                    total += p;
-                }
-            }
-            Map<String,Object> row = new LinkedHashMap<>();
-            row.put("name", name);
-            row.put("scores", pts);
-            row.put("total", total);
-            list.add(row);
-        }
-        return list;
+    /**
+     * Hands every competition to the storage's {@link ResultStorage#checkpoint}; a journal passes the LSN it will
+     * replay from.
+     */
+    public void checkpoint(long lsn) throws IOException {
+        List<ResultStorage.Stored> all = new ArrayList<>();
+        for (Competition c : competitions.values()) all.add(new ResultStorage.Stored(c.id(), c.mode(), c.capacity(), c.store().view()));
+        storage.checkpoint(all, lsn);
     }
 
-    public String exportCsv(String modeOpt) {
-        ScoringService.Mode m = currentMode;
-        if (modeOpt != null) {
-            try { m = ScoringService.Mode.valueOf(modeOpt.toUpperCase()); } catch (Exception ignored) {}
-        }
-        StringBuilder sb = new StringBuilder();
-        sb.append("MODE,").append(m.name()).append("\n");
-        List<String> ids = new ArrayList<>(scoring.events(m).keySet());
-        sb.append("Name,").append(String.join(",", ids)).append(",Total\n");
-        for (var name : raw.keySet()) {
-            Map<String, Double> r = raw.get(name);
-            int total = 0;
-            StringBuilder row = new StringBuilder();
-            row.append(escape(name));
-            for (String id : ids) {
-                row.append(",");
-                Double v = r.get(id);
-                if (v != null) {
-                    row.append(strip(v));
-                    total += scoring.score(m, id, v);
-                }
-            }
-            row.append(",").append(total);
-            sb.append(row).append("\n");
-        }
-        return sb.toString();
+    /** Routes every subsequent change through {@code log}, e.g. a durable journal once recovery has finished. */
+    public void setChangeLog(ChangeLog log) { this.log = log; }
+
+    ChangeLog log() { return log; }
+
+    /** Reports every subsequent standings change to {@code listener}, e.g. to push it to live scoreboards. */
+    public void setStandingsListener(StandingsListener listener) { this.listener = listener; }
+
+    StandingsListener listener() { return listener; }
+
+    /** Records timings and counts of every subsequent operation into {@code metrics}. */
+    public void setMetrics(Metrics metrics) { this.instruments = Instruments.register(metrics, this); }
+
+    Instruments instruments() { return instruments; }
+
+    boolean recovering() { return recovering; }
+
+    long nextVersion() { return versions.incrementAndGet(); }
+
+    /**
+     * Suspends standings maintenance while a journal is replayed: changes only reach the athlete stores until
+     * {@link #endRecovery()} rescores everyone once, instead of rescoring a row for every replayed record.
+     */
+    public void beginRecovery() { recovering = true; }
+
+    public void endRecovery() {
+        recovering = false;
+        for (Competition c : competitions.values()) c.reindex();
     }
 
-    public void importCsv(String csv) {
-        if (csv == null) return;
-        String[] lines = csv.split("\\R");
-        if (lines.length < 2) return;
-        String first = lines[0].trim();
-        if (!first.startsWith("MODE,")) return;
-        String modeStr = first.substring(5).trim();
-        try { currentMode = ScoringService.Mode.valueOf(modeStr.toUpperCase()); } catch (Exception ignored) {}
-        String header = lines[1];
-        String[] cols = splitCsv(header);
-        if (cols.length < 2 || !"Name".equals(cols[0])) return;
-        List<String> ids = new ArrayList<>();
-        for (int i = 1; i < cols.length; i++) {
-            if ("Total".equalsIgnoreCase(cols[i])) break;
-            ids.add(cols[i]);
-        }
-        raw.clear();
-        for (int i = 2; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.isEmpty()) continue;
-            String[] c = splitCsv(line);
-            if (c.length == 0) continue;
-            String name = unescape(c[0]).trim();
-            if (name.isEmpty()) continue;
-            addCompetitor(name);
-            for (int j = 0; j < ids.size(); j++) {
-                int idx = j + 1;
-                if (idx >= c.length) break;
-                String v = c[idx].trim();
-                if (!v.isEmpty()) {
-                    try {
-                        double val = Double.parseDouble(v.replace(',', '.'));
-                        raw.get(name).put(ids.get(j), val);
-                    } catch (NumberFormatException ignored) {}
-                }
-            }
+    /** The competition with this id, or null. */
+    public Competition get(String id) { return competitions.get(id); }
+
+    public Competition getDefault() { return defaultCompetition; }
+
+    public Collection<Competition> competitions() { return Collections.unmodifiableCollection(competitions.values()); }
+
+    /** Returns the competition with this id, creating it in {@code mode} if there is none. */
+    public Competition open(String id, ScoringService.Mode mode) { return open(id, mode, 0); }
+
+    /**
+     * Returns the competition with this id, creating it if there is none; an existing competition keeps its mode and
+     * capacity.
+     *
+     * @param capacity most competitors it admits, or 0 for the configured default
+     */
+    public Competition open(String id, ScoringService.Mode mode, int capacity) {
+        Competition c = competitions.get(id);
+        if (c != null) return c;
+        ChangeLog.Recorded<Competition> r;
+        registryLock.lock();
+        try {
+            c = competitions.get(id);
+            if (c != null) return c;
+            r = log.record(new ChangeLog.Open(id, mode, capacity), () -> {
+                Competition created = new Competition(id, mode, capacity, this, scoring, storage.create(id));
+                competitions.put(id, created);
+                return created;
+            });
+        } finally {
+            registryLock.unlock();
         }
+        log.awaitDurable(r.lsn());
+        return r.result();
     }
 
-    private static String strip(double d) {
-        String s = Double.toString(d);
-        if (s.contains(".")) {
-            while (s.endsWith("0")) s = s.substring(0, s.length() - 1);
-            if (s.endsWith(".")) s = s.substring(0, s.length() - 1);
+    /**
+     * Drops a competition and its results. The default competition cannot be removed.
+     *
+     * @return false if there was no such competition
+     */
+    public boolean remove(String id) {
+        if (DEFAULT.equals(id)) return false;
+        ChangeLog.Recorded<Competition> r;
+        registryLock.lock();
+        try {
+            if (!competitions.containsKey(id)) return false;
+            r = log.record(new ChangeLog.Remove(id), () -> competitions.remove(id));
+        } finally {
+            registryLock.unlock();
         }
-        return s;
+        log.awaitDurable(r.lsn());
+        Competition c = r.result();
+        c.store().release();
+        if (!recovering) listener.reset(c);
+        return true;
     }
 
-    private static String escape(String s) {
-        if (s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r")) {
-            return "\"" + s.replace("\"", "\"\"") + "\"";
-        }
-        return s;
+    public ScoringService.Mode mode() { return defaultCompetition.mode(); }
+
+    public Iterable<AthleteStore.Athlete> athletes() { return defaultCompetition.athletes(); }
+
+    public void addCompetitor(String name) { defaultCompetition.addCompetitor(name); }
+
+    public int score(String name, String event, double value) { return score(name, event, value, "DEC"); }
+
+    /** Scores in the default competition; a null mode means DEC, as it always has here. */
+    public int score(String name, String event, double value, String modeStr) {
+        return defaultCompetition.score(name, event, value, modeStr == null ? "DEC" : modeStr);
     }
 
-    private static String unescape(String s) {
-        String t = s.trim();
-        if (t.startsWith("\"") && t.endsWith("\"") && t.length() >= 2) {
-            t = t.substring(1, t.length() - 1).replace("\"\"", "\"");
-        }
-        return t;
+    public List<StandingDto> standings() { return defaultCompetition.standings(); }
+
+    public String exportCsv(String modeOpt) { return defaultCompetition.exportCsv(modeOpt); }
+
+    public void exportCsv(String modeOpt, Writer out) throws IOException { defaultCompetition.exportCsv(modeOpt, out); }
+
+    public ImportReport importCsv(String csv) { return defaultCompetition.importCsv(csv); }
+
+    public ImportReport importCsv(InputStream in, CsvReader.ErrorPolicy policy) throws IOException {
+        return defaultCompetition.importCsv(in, policy);
     }
 
-    private static String[] splitCsv(String line) {
-        List<String> parts = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder cur = new StringBuilder();
-        for (int i = 0; i < line.length(); i++) {
-            char ch = line.charAt(i);
-            if (inQuotes) {
-                if (ch == '"') {
-                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
-                    else { inQuotes = false; }
-                } else cur.append(ch);
-            } else {
-                if (ch == ',') { parts.add(cur.toString()); cur.setLength(0); }
-                else if (ch == '"') inQuotes = true;
-                else cur.append(ch);
-            }
-        }
-        parts.add(cur.toString());
-        return parts.toArray(new String[0]);
+    public ImportReport importCsv(Path file, CsvReader.ErrorPolicy policy) throws IOException {
+        return defaultCompetition.importCsv(file, policy);
     }
 }
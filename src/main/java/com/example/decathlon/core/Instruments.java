@@ -0,0 +1,118 @@
+package com.example.decathlon.core;
+
+import com.example.decathlon.jfr.CsvExportEvent;
+import com.example.decathlon.jfr.CsvImportEvent;
+import com.example.decathlon.jfr.ScoreEvent;
+import com.example.decathlon.jfr.StandingsEvent;
+import com.example.decathlon.metrics.Counter;
+import com.example.decathlon.metrics.Metrics;
+import com.example.decathlon.metrics.Timer;
+import jdk.jfr.EventType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The instruments competitions record into, looked up once so that recording costs no registry lookups. Each timed
+ * operation is an {@link Op}, which also traces it as a Flight Recorder event, so competitions only say what to run.
+ */
+final class Instruments {
+    static final Instruments OFF = new Instruments(Metrics.OFF);
+
+    final Op<ScoreEvent> score, scoreBatch;
+    final Op<StandingsEvent> standings;
+    final Op<CsvExportEvent> exportCsv;
+    final Op<CsvImportEvent> importCsv;
+    final Op<jdk.jfr.Event> rescore;
+    final Counter importRows, importBytes, exportRows;
+    /** Results recorded, by mode and event ordinal. */
+    private final Counter[][] results;
+    private final boolean on;
+
+    Instruments(Metrics m) {
+        on = m.enabled();
+        String op = "decathlon_operation_seconds", opHelp = "Duration of competition operations";
+        score = new Op<>(m.timer(op, opHelp, "op", "score"), ScoreEvent.class, ScoreEvent::new);
+        scoreBatch = new Op<>(m.timer(op, opHelp, "op", "score_batch"), ScoreEvent.class, ScoreEvent::new);
+        standings = new Op<>(m.timer(op, opHelp, "op", "standings"), StandingsEvent.class, StandingsEvent::new);
+        exportCsv = new Op<>(m.timer(op, opHelp, "op", "export_csv"), CsvExportEvent.class, CsvExportEvent::new);
+        importCsv = new Op<>(m.timer(op, opHelp, "op", "import_csv"), CsvImportEvent.class, CsvImportEvent::new);
+        rescore = new Op<>(m.timer(op, opHelp, "op", "rescore"), null, null);
+        String rows = "decathlon_csv_rows_total", rowsHelp = "CSV rows imported or exported";
+        importRows = m.counter(rows, rowsHelp, "direction", "import");
+        exportRows = m.counter(rows, rowsHelp, "direction", "export");
+        importBytes = m.counter("decathlon_csv_bytes_total", "CSV bytes imported or exported", "direction", "import");
+        ScoringService.Mode[] modes = ScoringService.Mode.values();
+        ScoringService.Event[] events = ScoringService.Event.values();
+        results = new Counter[modes.length][events.length];
+        for (ScoringService.Mode mode : modes) {
+            for (ScoringService.Event e : events) {
+                results[mode.ordinal()][e.ordinal()] = m.counter("decathlon_results_total", "Results recorded",
+                        "mode", mode.name(), "event", e.id());
+            }
+        }
+    }
+
+    /** Registers the gauges that read the competitions of {@code comp} at each scrape. */
+    static Instruments register(Metrics m, CompetitionService comp) {
+        m.gauge("decathlon_athletes", "Athletes entered", "competition", () -> {
+            Map<String, Integer> v = new LinkedHashMap<>();
+            for (Competition c : comp.competitions()) v.put(c.id(), c.size());
+            return v;
+        });
+        m.gauge("decathlon_store_bytes", "Bytes of result columns held", "competition", () -> {
+            Map<String, Long> v = new LinkedHashMap<>();
+            for (Competition c : comp.competitions()) v.put(c.id(), c.store().bytes());
+            return v;
+        });
+        return m.enabled() ? new Instruments(m) : OFF;
+    }
+
+    void result(ScoringService.Mode mode, String event) {
+        if (!on) return;
+        ScoringService.Event e = ScoringService.Event.of(event);
+        if (e != null) results[mode.ordinal()][e.ordinal()].increment();
+    }
+
+    /** The work of an operation; it may throw what the operation throws. */
+    interface Body<T, X extends Exception> {
+        T run() throws X;
+    }
+
+    /** An operation timed into a {@link Timer} and, if it has an event type, traced as Flight Recorder events. */
+    static final class Op<E extends jdk.jfr.Event> {
+        private final Timer timer;
+        /** Looked up once; an event is only created while a recording has this type enabled. */
+        private final EventType type;
+        private final Supplier<E> event;
+
+        Op(Timer timer, Class<E> type, Supplier<E> event) {
+            this.timer = timer;
+            this.type = type != null ? EventType.getEventType(type) : null;
+            this.event = event;
+        }
+
+        /**
+         * Runs {@code body}, then records its duration and hands the event and the result to {@code end} to fill in
+         * and commit. Nothing is recorded if {@code body} throws.
+         */
+        <T, X extends Exception> T time(Body<T, X> body, BiConsumer<? super E, ? super T> end) throws X {
+            long started = timer.start();
+            E jfr = type != null && type.isEnabled() ? event.get() : null;
+            if (jfr != null) jfr.begin();
+            T result = body.run();
+            timer.stop(started);
+            if (jfr != null) end.accept(jfr, result);
+            return result;
+        }
+
+        void time(Runnable body) {
+            time(() -> {
+                body.run();
+                return null;
+            }, null);
+        }
+    }
+}
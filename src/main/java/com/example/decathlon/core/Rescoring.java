@@ -0,0 +1,41 @@
+package com.example.decathlon.core;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How a full rescoring (an import, a mode switch, recovery) runs: on the calling thread for fewer than
+ * {@link #threshold()} athletes, otherwise split into blocks across a {@link ForkJoinPool}. Either way the standings
+ * come out the same, since rows are ranked by total and insertion order, not by when they were scored.
+ */
+public final class Rescoring implements AutoCloseable {
+    public static final Rescoring SEQUENTIAL = new Rescoring(null, Integer.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private Rescoring(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param parallelism worker threads, or 0 for one per available processor
+     * @param threshold   fewest athletes worth splitting
+     */
+    public static Rescoring parallel(int parallelism, int threshold) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return threads == 1 ? SEQUENTIAL : new Rescoring(new ForkJoinPool(threads), Math.max(1, threshold));
+    }
+
+    /** The pool to split {@code athletes} across, or null to stay on the calling thread. */
+    ForkJoinPool pool(int athletes) { return pool != null && athletes >= threshold ? pool : null; }
+
+    public int parallelism() { return pool == null ? 1 : pool.getParallelism(); }
+
+    public int threshold() { return threshold; }
+
+    @Override
+    public void close() {
+        if (pool != null) pool.shutdown();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.decathlon.core;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RescoringConfiguration {
+    @Bean(destroyMethod = "close")
+    public Rescoring rescoring(@Value("${decathlon.rescore.parallelism:0}") int parallelism,
+                               @Value("${decathlon.rescore.threshold:16384}") int threshold) {
+        return Rescoring.parallel(parallelism, threshold);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.decathlon.core;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where {@link CompetitionService} keeps each competition's athlete stores. {@link #HEAP} keeps them in memory only;
+ * a persistent storage also brings competitions back on start and makes the state durable at every
+ * {@link #checkpoint}, so a journal only has to replay what came after the last one instead of loading a snapshot.
+ */
+public interface ResultStorage {
+    ResultStorage HEAP = new ResultStorage() {};
+
+    /** A competition's state as handed to and returned from a checkpoint. */
+    record Stored(String id, ScoringService.Mode mode, int capacity, AthleteStore store) {}
+
+    /** Competitions as of the last checkpoint, their stores ready to use; empty for a fresh or heap storage. */
+    default List<Stored> load() throws IOException { return List.of(); }
+
+    /** An empty store for the competition, either its live store or one an import stages into. */
+    default AthleteStore create(String competition) { return new AthleteStore(); }
+
+    /** Whether {@link #checkpoint} makes the state durable. */
+    default boolean persistent() { return false; }
+
+    /** The journal LSN recorded by the last checkpoint, or 0 if nothing was checkpointed yet. */
+    default long checkpointLsn() { return 0; }
+
+    /**
+     * Makes {@code competitions} durable and drops whatever earlier checkpoints held beyond them. Writes may continue
+     * meanwhile; a change that lands in the checkpoint and is replayed again from {@code lsn} leaves the same state.
+     */
+    default void checkpoint(List<Stored> competitions, long lsn) throws IOException {}
+}
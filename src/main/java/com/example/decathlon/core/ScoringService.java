@@ -1,6 +1,10 @@
 package com.example.decathlon.core;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -10,6 +14,30 @@ public class ScoringService {
     public enum Mode { DEC, HEP }
     public record EventDef(String id, String label, Type type, double A, double B, double C, String unit) {}
 
+    /** Every event id across both modes, so hot paths can index arrays by ordinal instead of hashing strings. */
+    public enum Event {
+        RUN_100M("100m"), LONG_JUMP("longJump"), SHOT_PUT("shotPut"), HIGH_JUMP("highJump"), RUN_400M("400m"),
+        HURDLES_110M("110mHurdles"), DISCUS("discus"), POLE_VAULT("poleVault"), JAVELIN("javelin"),
+        RUN_1500M("1500m"), HURDLES_100M("100mHurdles"), RUN_200M("200m"), RUN_800M("800m");
+
+        private static final Map<String, Event> BY_ID = new HashMap<>();
+        static { for (Event e : values()) BY_ID.put(e.id, e); }
+
+        private final String id;
+
+        Event(String id) { this.id = id; }
+
+        public String id() { return id; }
+
+        /** @return the event with this id, or {@code null} if no mode knows it */
+        public static Event of(String id) { return id == null ? null : BY_ID.get(id); }
+    }
+
+    private static final int MISS = -1;
+    private static final int FIELD_TABLE_SIZE = 16_384;
+    /** Whether {@link #scoreBatch} can use {@link VectorScoring}; needs {@code --add-modules jdk.incubator.vector}. */
+    private static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
     private final Map<String, EventDef> decEvents = new LinkedHashMap<>() {{
         put("100m",         new EventDef("100m",        "100m",           Type.TRACK, 25.4347, 18.0,   1.81, "s"));
         put("longJump",     new EventDef("longJump",    "Long Jump",      Type.FIELD, 0.14354, 220.0,  1.40, "cm"));
@@ -33,6 +61,30 @@ public class ScoringService {
         put("800m",         new EventDef("800m",        "800m",           Type.TRACK, 0.11193,254.0, 1.88,  "s"));
     }};
 
+    private final EventDef[][] defs = new EventDef[Mode.values().length][Event.values().length];
+    private final PointsTable[][] tables = new PointsTable[Mode.values().length][Event.values().length];
+    private final boolean verify;
+
+    public ScoringService() { this(true, false); }
+
+    /**
+     * @param useTables score from precomputed points tables where the performance lies on the 0.01 s / 1 cm grid
+     * @param verify    check every table hit against the formula and fail loudly on a mismatch
+     */
+    @Autowired
+    public ScoringService(@Value("${decathlon.scoring.tables:true}") boolean useTables,
+                          @Value("${decathlon.scoring.verify:false}") boolean verify) {
+        this.verify = verify;
+        for (Mode m : Mode.values()) {
+            for (EventDef def : events(m).values()) {
+                Event ev = Event.of(def.id());
+                defs[m.ordinal()][ev.ordinal()] = def;
+                if (useTables) tables[m.ordinal()][ev.ordinal()] = PointsTable.build(def);
+            }
+        }
+        if (verify) verifyTables();
+    }
+
     public Map<String, EventDef> events(Mode mode) {
         return mode == Mode.HEP ? hepEvents : decEvents;
     }
@@ -41,9 +93,96 @@ public class ScoringService {
         return events(mode).get(id);
     }
 
+    public EventDef get(Mode mode, Event event) {
+        return defs[mode.ordinal()][event.ordinal()];
+    }
+
     public int score(Mode mode, String eventId, double raw) {
-        EventDef e = get(mode, eventId);
+        Event ev = Event.of(eventId);
+        return ev == null ? 0 : score(mode, ev, raw);
+    }
+
+    public int score(Mode mode, Event event, double raw) {
+        EventDef e = defs[mode.ordinal()][event.ordinal()];
         if (e == null) return 0;
+        PointsTable t = tables[mode.ordinal()][event.ordinal()];
+        if (t != null) {
+            int p = t.lookup(raw);
+            if (p != MISS) {
+                if (verify && p != formula(e, raw)) {
+                    throw new IllegalStateException("Points table mismatch for " + mode + "/" + e.id() + " at " + raw);
+                }
+                return p;
+            }
+        }
+        return formula(e, raw);
+    }
+
+    /**
+     * Scores {@code raws[i]} into {@code out[i]} for every {@code i}, exactly as {@link #score(Mode, Event, double)}
+     * would, for bulk rescoring. Uses the Vector API where the JVM runs with {@code jdk.incubator.vector}, and a
+     * scalar loop otherwise.
+     */
+    public void scoreBatch(Mode mode, String eventId, double[] raws, int[] out) {
+        Event ev = Event.of(eventId);
+        if (ev == null) Arrays.fill(out, 0, raws.length, 0);
+        else scoreBatch(mode, ev, raws, 0, raws.length, out);
+    }
+
+    /** Scores {@code raws[from..to)} into the same positions of {@code out}. */
+    public void scoreBatch(Mode mode, Event event, double[] raws, int from, int to, int[] out) {
+        EventDef e = defs[mode.ordinal()][event.ordinal()];
+        if (e == null) {
+            Arrays.fill(out, from, to, 0);
+            return;
+        }
+        if (!VECTOR) {
+            for (int i = from; i < to; i++) out[i] = score(mode, event, raws[i]);
+            return;
+        }
+        VectorScoring.score(e, raws, from, to, out);
+        if (verify) {
+            for (int i = from; i < to; i++) {
+                if (out[i] != formula(e, raws[i])) {
+                    throw new IllegalStateException("Batch scoring mismatch for " + mode + "/" + e.id() + " at " + raws[i]);
+                }
+            }
+        }
+    }
+
+    /** Whether {@link #scoreBatch} runs on the Vector API in this JVM. */
+    public static boolean vectorized() { return VECTOR; }
+
+    /**
+     * Compares every table entry with the formula, and batch scoring of every table entry with the formula;
+     * throws {@link IllegalStateException} on the first mismatch.
+     */
+    public void verifyTables() {
+        for (Mode m : Mode.values()) {
+            for (Event ev : Event.values()) {
+                PointsTable t = tables[m.ordinal()][ev.ordinal()];
+                if (t == null) continue;
+                EventDef e = defs[m.ordinal()][ev.ordinal()];
+                double[] raws = new double[t.points.length];
+                for (int i = 0; i < t.points.length; i++) {
+                    double raw = t.raw(i);
+                    raws[i] = raw;
+                    if (t.lookup(raw) != formula(e, raw)) {
+                        throw new IllegalStateException("Points table mismatch for " + m + "/" + e.id() + " at " + raw);
+                    }
+                }
+                int[] batch = new int[raws.length];
+                scoreBatch(m, ev, raws, 0, raws.length, batch);
+                for (int i = 0; i < raws.length; i++) {
+                    if (batch[i] != t.points[i]) {
+                        throw new IllegalStateException("Batch scoring mismatch for " + m + "/" + e.id() + " at " + raws[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    static int formula(EventDef e, double raw) {
         double points;
         if (e.type == Type.TRACK) {
             double x = e.B - raw;
@@ -56,4 +195,46 @@ public class ScoringService {
         }
         return (int)Math.floor(points);
     }
+
+    /**
+     * Points for every quantized performance in a range: index {@code i} holds the formula result for
+     * {@code (lo + i) / scale}. A lookup only hits when the raw value is exactly that double, so the result is
+     * bit-identical to the formula; anything off the grid or out of range falls back to it.
+     */
+    private static final class PointsTable {
+        private final double scale;
+        private final long lo;
+        private final int[] points;
+
+        private PointsTable(double scale, long lo, int[] points) {
+            this.scale = scale;
+            this.lo = lo;
+            this.points = points;
+        }
+
+        static PointsTable build(EventDef e) {
+            double scale = "cm".equals(e.unit()) ? 1 : 100;
+            long lo;
+            int size;
+            if (e.type() == Type.TRACK) {
+                lo = 0;
+                size = (int) Math.ceil(e.B() * scale) + 1;
+            } else {
+                lo = (long) Math.floor(e.B() * scale);
+                size = FIELD_TABLE_SIZE;
+            }
+            PointsTable t = new PointsTable(scale, lo, new int[size]);
+            for (int i = 0; i < size; i++) t.points[i] = formula(e, t.raw(i));
+            return t;
+        }
+
+        double raw(int i) { return (lo + i) / scale; }
+
+        int lookup(double raw) {
+            double q = Math.rint(raw * scale);
+            if (q / scale != raw) return MISS;
+            long i = (long) q - lo;
+            return i >= 0 && i < points.length ? points[(int) i] : MISS;
+        }
+    }
 }
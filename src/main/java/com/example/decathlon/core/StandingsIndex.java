@@ -0,0 +1,310 @@
+package com.example.decathlon.core;
+
+import com.example.decathlon.dto.RankedStandingDto;
+import com.example.decathlon.dto.StandingDto;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Standings kept up to date as results arrive. Each athlete's row is rescored only for the event that changed,
+ * rows are kept in rank order (total descending, then insertion order), and reads are served from an immutable
+ * snapshot that is rebuilt only after a change. A count of rows per total answers rank and page queries in
+ * O(log n) without a snapshot.
+ */
+public class StandingsIndex {
+    private record Entry(StandingDto row, long seq) {}
+    private record Snapshot(long version, List<StandingDto> rows) {}
+
+    /**
+     * The rows of one mode. A rebuild fills a fresh state and swaps it in whole, so a change racing with the rebuild
+     * patches either the old rows, which are dropped, or the new ones, never a half-cleared mix of both.
+     */
+    private static final class State {
+        final ScoringService.Mode mode;
+        final ConcurrentHashMap<String, Entry> rows = new ConcurrentHashMap<>();
+        final ConcurrentSkipListSet<Entry> ranked = new ConcurrentSkipListSet<>(RANK);
+        final TotalCounts totals = new TotalCounts();
+
+        State(ScoringService.Mode mode) { this.mode = mode; }
+    }
+
+    private static final int REBUILD_BLOCK = 1024;
+    private static final Comparator<Entry> RANK =
+            Comparator.comparingInt((Entry e) -> -e.row().total()).thenComparingLong(Entry::seq);
+
+    private final ScoringService scoring;
+    /** Each mode's events in column order, so rows are scored straight from the store's primitive columns. */
+    private final ScoringService.Event[][] columns = new ScoringService.Event[ScoringService.Mode.values().length][];
+    private volatile State state = new State(ScoringService.Mode.DEC);
+    private final AtomicLong version = new AtomicLong();
+    /** Odd while a batch is being applied; readers keep the last complete snapshot until it is even again. */
+    private final AtomicLong batches = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(0, List.of());
+
+    public StandingsIndex(ScoringService scoring) {
+        this.scoring = scoring;
+        for (ScoringService.Mode m : ScoringService.Mode.values()) {
+            columns[m.ordinal()] = scoring.events(m).keySet().stream().map(ScoringService.Event::of)
+                    .toArray(ScoringService.Event[]::new);
+        }
+    }
+
+    public ScoringService.Mode mode() { return state.mode; }
+
+    /** Makes sure the athlete has a row for the current mode, scoring it in full if it has none yet. */
+    public void refresh(AthleteStore.Athlete a) {
+        State s = state;
+        s.rows.compute(a.name(), (name, old) -> {
+            if (old != null) return old;
+            return replace(s, null, new Entry(fullRow(a, s.mode), a.seq()));
+        });
+        version.incrementAndGet();
+    }
+
+    /** Rescores a single event of the athlete and patches its row. */
+    public void update(AthleteStore.Athlete a, String event) {
+        State s = state;
+        s.rows.compute(a.name(), (name, old) -> {
+            if (old != null && scoring.get(s.mode, event) == null) return old;
+            return patch(s, old, a, Set.of(event));
+        });
+        version.incrementAndGet();
+    }
+
+    /**
+     * Applies a batch of results, {@code events[i]} of {@code athletes[i]}, rescoring each athlete once. Snapshots
+     * taken meanwhile still show the standings from before the batch.
+     */
+    public void updateAll(AthleteStore.Athlete[] athletes, String[] events) {
+        Map<AthleteStore.Athlete, Set<String>> changed = new LinkedHashMap<>();
+        for (int i = 0; i < athletes.length; i++) changed.computeIfAbsent(athletes[i], k -> new HashSet<>()).add(events[i]);
+        State s = state;
+        batches.incrementAndGet();
+        try {
+            changed.forEach((a, ev) -> s.rows.compute(a.name(), (name, old) -> patch(s, old, a, ev)));
+        } finally {
+            batches.incrementAndGet();
+            version.incrementAndGet();
+        }
+    }
+
+    /** Switches mode and rescores every athlete on the calling thread. */
+    public void rebuild(Iterable<AthleteStore.Athlete> athletes, ScoringService.Mode m) {
+        rebuild(athletes, m, Rescoring.SEQUENTIAL);
+    }
+
+    /**
+     * Switches mode and rescores every athlete, {@value #REBUILD_BLOCK} at a time and one event column at a time
+     * through {@link ScoringService#scoreBatch}. Large fields are split into runs of blocks across the rescoring pool.
+     * The new rows replace the old ones at once when all are scored; the caller keeps the athletes from changing
+     * meanwhile, so none of their results is missed.
+     */
+    public void rebuild(Iterable<AthleteStore.Athlete> athletes, ScoringService.Mode m, Rescoring rescoring) {
+        State s = new State(m);
+        List<AthleteStore.Athlete[]> blocks = new ArrayList<>();
+        AthleteStore.Athlete[] block = new AthleteStore.Athlete[REBUILD_BLOCK];
+        int n = 0, size = 0;
+        for (var a : athletes) {
+            block[n++] = a;
+            if (n == REBUILD_BLOCK) {
+                blocks.add(block);
+                block = new AthleteStore.Athlete[REBUILD_BLOCK];
+                n = 0;
+            }
+            size++;
+        }
+        if (n > 0) blocks.add(Arrays.copyOf(block, n));
+        ForkJoinPool pool = rescoring.pool(size);
+        if (pool == null) new Rescore(blocks, 0, blocks.size(), s, blocks.size()).compute();
+        else pool.invoke(new Rescore(blocks, 0, blocks.size(), s, Math.max(1, blocks.size() / (pool.getParallelism() * 4))));
+        state = s;
+        version.incrementAndGet();
+    }
+
+    /** Rescores {@code blocks[from..to)}, splitting in halves down to {@code leaf} blocks, each leaf with one set of buffers. */
+    private final class Rescore extends RecursiveAction {
+        private final List<AthleteStore.Athlete[]> blocks;
+        private final int from, to, leaf;
+        private final State s;
+
+        Rescore(List<AthleteStore.Athlete[]> blocks, int from, int to, State s, int leaf) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.s = s;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leaf) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Rescore(blocks, from, mid, s, leaf), new Rescore(blocks, mid, to, s, leaf));
+                return;
+            }
+            int events = columns[s.mode.ordinal()].length;
+            double[][] raws = new double[events][REBUILD_BLOCK];
+            int[][] points = new int[events][REBUILD_BLOCK];
+            for (int i = from; i < to; i++) rebuild(blocks.get(i), blocks.get(i).length, s, raws, points);
+        }
+    }
+
+    private void rebuild(AthleteStore.Athlete[] block, int n, State s, double[][] raws, int[][] points) {
+        ScoringService.Mode m = s.mode;
+        ScoringService.Event[] events = columns[m.ordinal()];
+        for (int e = 0; e < events.length; e++) {
+            for (int i = 0; i < n; i++) raws[e][i] = block[i].result(events[e]);
+            scoring.scoreBatch(m, events[e], raws[e], 0, n, points[e]);
+        }
+        for (int i = 0; i < n; i++) {
+            AthleteStore.Athlete a = block[i];
+            Map<String, Integer> pts = new LinkedHashMap<>();
+            int total = 0;
+            for (int e = 0; e < events.length; e++) {
+                if (Double.isNaN(raws[e][i])) continue;
+                pts.put(events[e].id(), points[e][i]);
+                total += points[e][i];
+            }
+            StandingDto row = new StandingDto(a.name(), Collections.unmodifiableMap(pts), total);
+            s.rows.compute(a.name(), (name, old) -> replace(s, old, new Entry(row, a.seq())));
+        }
+    }
+
+    /** Drops every row, keeping the mode. */
+    public void clear() {
+        state = new State(state.mode);
+        version.incrementAndGet();
+    }
+
+    /** Number of rows; O(1). */
+    public int size() { return state.totals.size(); }
+
+    /**
+     * The athlete's competition rank, one more than the number of athletes with a higher total, or 0 if it has no
+     * row; O(log n).
+     */
+    public int rank(String name) {
+        State s = state;
+        Entry e = s.rows.get(name);
+        return e == null ? 0 : s.totals.above(e.row().total()) + 1;
+    }
+
+    /** The athlete's row with its rank, or null if it has none. */
+    public RankedStandingDto ranked(String name) {
+        State s = state;
+        Entry e = s.rows.get(name);
+        return e == null ? null : ranked(e.row(), s.totals.above(e.row().total()) + 1);
+    }
+
+    /**
+     * Up to {@code limit} rows in rank order, starting at the 0-based position {@code offset}. The first row is found
+     * in O(log n) through the counts per total, then the rows are read off the rank order; only rows that tie with
+     * the first are skipped one by one. Weakly consistent with concurrent changes, like {@link #snapshot()}.
+     */
+    public List<RankedStandingDto> page(int offset, int limit) {
+        State s = state;
+        TotalCounts totals = s.totals;
+        int n = totals.size();
+        if (offset >= n || limit <= 0) return List.of();
+        int total = totals.select(n - offset);
+        if (total < 0) return List.of();
+        int skip = offset - totals.above(total);
+        Entry from = new Entry(new StandingDto("", Map.of(), total), Long.MIN_VALUE);
+        List<RankedStandingDto> page = new ArrayList<>(Math.min(limit, n - offset));
+        int rank = 0, last = -1;
+        for (Entry e : s.ranked.tailSet(from)) {
+            if (s.rows.get(e.row().name()) != e) continue;
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            int t = e.row().total();
+            if (t != last) {
+                rank = totals.above(t) + 1;
+                last = t;
+            }
+            page.add(ranked(e.row(), rank));
+            if (page.size() == limit) break;
+        }
+        return page;
+    }
+
+    private static RankedStandingDto ranked(StandingDto row, int rank) {
+        return new RankedStandingDto(rank, row.name(), row.scores(), row.total());
+    }
+
+    /** The athlete's current row, or null if it has none; O(1), unlike a {@link #snapshot()}. */
+    public StandingDto row(String name) {
+        Entry e = state.rows.get(name);
+        return e == null ? null : e.row();
+    }
+
+    /**
+     * Current standings in rank order. The returned list is immutable and shared between callers until the next
+     * change; a snapshot taken while a row is being replaced may miss that row and is rebuilt on the next read.
+     */
+    public List<StandingDto> snapshot() {
+        Snapshot s = snapshot;
+        long v = version.get();
+        if (s.version() == v) return s.rows();
+        long b = batches.get();
+        if ((b & 1) != 0) return s.rows();
+        State st = state;
+        List<StandingDto> list = new ArrayList<>(st.rows.size());
+        for (Entry e : st.ranked) {
+            if (st.rows.get(e.row().name()) == e) list.add(e.row());
+        }
+        if (batches.get() != b) return s.rows();
+        s = new Snapshot(v, Collections.unmodifiableList(list));
+        snapshot = s;
+        return s.rows();
+    }
+
+    private static Entry replace(State s, Entry old, Entry next) {
+        if (old != null && s.ranked.remove(old)) s.totals.add(old.row().total(), -1);
+        if (s.ranked.add(next)) s.totals.add(next.row().total(), 1);
+        return next;
+    }
+
+    /** Rescores {@code events} of the athlete on top of its current row, or the whole row if it has none yet. */
+    private Entry patch(State s, Entry old, AthleteStore.Athlete a, Set<String> events) {
+        ScoringService.Mode m = s.mode;
+        if (old == null) return replace(s, null, new Entry(fullRow(a, m), a.seq()));
+        Map<String, Integer> pts = new LinkedHashMap<>();
+        int total = 0;
+        for (ScoringService.Event ev : columns[m.ordinal()]) {
+            String id = ev.id();
+            Integer p;
+            if (events.contains(id)) {
+                double v = a.result(ev);
+                p = Double.isNaN(v) ? null : scoring.score(m, ev, v);
+            } else {
+                p = old.row().scores().get(id);
+            }
+            if (p != null) {
+                pts.put(id, p);
+                total += p;
+            }
+        }
+        return replace(s, old, new Entry(new StandingDto(a.name(), Collections.unmodifiableMap(pts), total), a.seq()));
+    }
+
+    private StandingDto fullRow(AthleteStore.Athlete a, ScoringService.Mode m) {
+        Map<String, Integer> pts = new LinkedHashMap<>();
+        int total = 0;
+        for (ScoringService.Event ev : columns[m.ordinal()]) {
+            double v = a.result(ev);
+            if (!Double.isNaN(v)) {
+                int p = scoring.score(m, ev, v);
+                pts.put(ev.id(), p);
+                total += p;
+            }
+        }
+        return new StandingDto(a.name(), Collections.unmodifiableMap(pts), total);
+    }
+}
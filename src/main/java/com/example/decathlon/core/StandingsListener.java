@@ -0,0 +1,15 @@
+package com.example.decathlon.core;
+
+/**
+ * Told about standings changes after they are visible in {@link Competition#standings()}. Called on the thread that
+ * made the change, so implementations must return quickly. Not called while a journal is replayed.
+ */
+public interface StandingsListener {
+    StandingsListener NONE = new StandingsListener() {};
+
+    /** The athlete's row changed because of a result for {@code event}, or was added if {@code event} is null. */
+    default void changed(Competition c, String athlete, String event) {}
+
+    /** Any row may have changed: after an import, a mode switch or removal of the competition. */
+    default void reset(Competition c) {}
+}
@@ -0,0 +1,93 @@
+package com.example.decathlon.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * How many standings rows have each total, as a Fenwick tree over totals: counting the rows above a total and finding
+ * the total at a rank position are O(log max total). Totals are never negative. Updates from different threads only
+ * contend on the cells they share; the tree doubles under the write lock when a total outgrows it. Queries are weakly
+ * consistent with concurrent updates.
+ */
+final class TotalCounts {
+    private static final int INITIAL = 1 << 14;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Node {@code i} (1-based) counts the totals in {@code [i - lowbit(i), i)}; the length is a power of two plus one. */
+    private volatile AtomicIntegerArray tree = new AtomicIntegerArray(INITIAL + 1);
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** Adds {@code delta} rows with this total. */
+    void add(int total, int delta) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                AtomicIntegerArray t = tree;
+                if (total + 1 < t.length()) {
+                    for (int i = total + 1; i < t.length(); i += i & -i) t.addAndGet(i, delta);
+                    size.addAndGet(delta);
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            grow(total);
+        }
+    }
+
+    int size() { return size.get(); }
+
+    /** Rows with a total above {@code total}, i.e. one less than the competition rank of that total. */
+    int above(int total) {
+        lock.readLock().lock();
+        try {
+            AtomicIntegerArray t = tree;
+            int atMost = 0;
+            for (int i = Math.min(total + 1, t.length() - 1); i > 0; i -= i & -i) atMost += t.get(i);
+            return size.get() - atMost;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The smallest total that {@code k} rows are at most (1-based), or -1 if there are fewer rows. */
+    int select(int k) {
+        lock.readLock().lock();
+        try {
+            AtomicIntegerArray t = tree;
+            int n = t.length() - 1;
+            int pos = 0;
+            for (int step = n; step > 0; step >>= 1) {
+                if (pos + step <= n && t.get(pos + step) < k) {
+                    pos += step;
+                    k -= t.get(pos);
+                }
+            }
+            return pos < n ? pos : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Doubles the tree until {@code total} fits. The existing nodes keep their ranges; of the new ones, only the last
+     * covers any row, and it covers them all.
+     */
+    private void grow(int total) {
+        lock.writeLock().lock();
+        try {
+            AtomicIntegerArray t = tree;
+            int n = t.length() - 1;
+            if (total + 1 <= n) return;
+            int m = n;
+            while (total + 1 > m) m <<= 1;
+            AtomicIntegerArray next = new AtomicIntegerArray(m + 1);
+            for (int i = 1; i <= n; i++) next.set(i, t.get(i));
+            for (int k = n << 1; k <= m; k <<= 1) next.set(k, size.get());
+            tree = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
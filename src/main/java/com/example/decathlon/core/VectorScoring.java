@@ -0,0 +1,37 @@
+package com.example.decathlon.core;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ScoringService#scoreBatch} on the incubator Vector API: {@code A * pow(x, C)} for a full vector of
+ * performances at a time. The vector {@code pow} may differ from {@link Math#pow} in the last place, so a lane whose
+ * points lie within a relative {@value #EDGE} of a whole number is scored again with the scalar formula; every
+ * other lane floors to the same int either way. Only loaded when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorScoring {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double EDGE = 1e-12;
+
+    private VectorScoring() {}
+
+    static void score(ScoringService.EventDef e, double[] raws, int from, int to, int[] out) {
+        // x = raw - B for field events and B - raw for track events; both are exact, as is the sign flip.
+        double sign = e.type() == ScoringService.Type.TRACK ? -1 : 1;
+        double[] lanes = new double[SPECIES.length()];
+        int i = from;
+        for (int end = from + SPECIES.loopBound(to - from); i < end; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, raws, i).mul(sign).add(-sign * e.B());
+            VectorMask<Double> scored = x.compare(VectorOperators.GT, 0);
+            x.lanewise(VectorOperators.POW, e.C()).mul(e.A()).blend(0, scored.not()).intoArray(lanes, 0);
+            for (int j = 0; j < lanes.length; j++) {
+                double p = lanes[j];
+                int lo = (int) (p * (1 - EDGE));
+                out[i + j] = lo == (int) (p * (1 + EDGE)) ? lo : ScoringService.formula(e, raws[i + j]);
+            }
+        }
+        for (; i < to; i++) out[i] = ScoringService.formula(e, raws[i]);
+    }
+}
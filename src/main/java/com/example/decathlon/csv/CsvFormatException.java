@@ -0,0 +1,13 @@
+package com.example.decathlon.csv;
+
+/** Malformed CSV input, reported with the line it was found on. */
+public class CsvFormatException extends IllegalArgumentException {
+    private final int line;
+
+    public CsvFormatException(int line, String message) {
+        super("Line " + line + ": " + message);
+        this.line = line;
+    }
+
+    public int line() { return line; }
+}
@@ -0,0 +1,266 @@
+package com.example.decathlon.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming CSV tokenizer over UTF-8 bytes. Each {@link #next()} finds the field boundaries of one record inside the
+ * read buffer without copying; numbers are parsed straight from the bytes and only names are decoded to Strings.
+ * Quoted fields may contain separators, doubled quotes and line breaks. Not thread-safe.
+ */
+public final class CsvReader implements Closeable {
+    /** What an importer does with a cell or row it cannot use. */
+    public enum ErrorPolicy { SKIP, FAIL }
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final ReadableByteChannel in;
+    private final Closeable resource;
+    private ByteBuffer buf;
+    private boolean eof;
+    private int pos;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fields;
+    private int line;
+    private long bytes;
+    private byte[] scratch = new byte[64];
+
+    private CsvReader(ReadableByteChannel in, ByteBuffer buf, boolean eof, Closeable resource) {
+        this.in = in;
+        this.buf = buf;
+        this.eof = eof;
+        this.resource = resource;
+    }
+
+    public static CsvReader of(ReadableByteChannel in) {
+        return new CsvReader(in, ByteBuffer.allocate(64 * 1024).flip(), false, in);
+    }
+
+    public static CsvReader of(InputStream in) { return of(Channels.newChannel(in)); }
+
+    /** Reads an in-memory buffer from its position to its limit. */
+    public static CsvReader of(ByteBuffer data) { return new CsvReader(null, data.slice(), true, null); }
+
+    /** Memory-maps the file; files over 2 GB are streamed through a channel instead. */
+    public static CsvReader map(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) return of(ch);
+            return new CsvReader(null, ch.map(FileChannel.MapMode.READ_ONLY, 0, size), true, ch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false at end of input
+     */
+    public boolean next() throws IOException {
+        for (;;) {
+            if (tokenize()) return true;
+            if (eof) {
+                if (pos >= buf.limit()) return false;
+                finishLast();
+                return true;
+            }
+            fill();
+        }
+    }
+
+    /** 1-based line number on which the current record ends. */
+    public int line() { return line; }
+
+    public int fields() { return fields; }
+
+    /** Bytes consumed so far. */
+    public long bytes() { return bytes; }
+
+    /** True if the field is missing or holds only whitespace. */
+    public boolean isBlank(int i) {
+        if (i >= fields) return true;
+        for (int p = starts[i]; p < ends[i]; p++) {
+            if ((buf.get(p) & 0xff) > ' ') return false;
+        }
+        return true;
+    }
+
+    /** True if the whole record is blank. */
+    public boolean isBlankLine() {
+        for (int i = 0; i < fields; i++) if (!isBlank(i)) return false;
+        return true;
+    }
+
+    /** The field decoded, unquoted and trimmed; {@code ""} if missing. */
+    public String string(int i) {
+        if (i >= fields) return "";
+        int s = starts[i], e = ends[i];
+        if (scratch.length < e - s) scratch = new byte[Math.max(e - s, scratch.length * 2)];
+        int n = 0;
+        if (!quoted[i]) {
+            buf.get(s, scratch, 0, e - s);
+            n = e - s;
+        } else {
+            boolean inQuotes = false;
+            for (int p = s; p < e; p++) {
+                byte b = buf.get(p);
+                if (b == '"') {
+                    if (inQuotes && p + 1 < e && buf.get(p + 1) == '"') { scratch[n++] = '"'; p++; }
+                    else inQuotes = !inQuotes;
+                } else scratch[n++] = b;
+            }
+        }
+        int from = 0;
+        while (from < n && (scratch[from] & 0xff) <= ' ') from++;
+        while (n > from && (scratch[n - 1] & 0xff) <= ' ') n--;
+        if (n - from >= 2 && scratch[from] == '"' && scratch[n - 1] == '"') {
+            return new String(scratch, from + 1, n - from - 2, StandardCharsets.UTF_8).replace("\"\"", "\"");
+        }
+        return new String(scratch, from, n - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the field as a number, accepting {@code ,} as the decimal separator. Plain decimals are converted
+     * from the bytes directly and give the same double as {@link Double#parseDouble}; other notations go through it.
+     *
+     * @return NaN if the field is blank
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double number(int i) {
+        if (isBlank(i)) return Double.NaN;
+        int s = starts[i], e = ends[i];
+        while ((buf.get(s) & 0xff) <= ' ') s++;
+        while ((buf.get(e - 1) & 0xff) <= ' ') e--;
+        if (!quoted[i]) {
+            int p = s;
+            boolean neg = false;
+            byte b = buf.get(p);
+            if (b == '-' || b == '+') { neg = b == '-'; p++; }
+            long m = 0;
+            int digits = 0, frac = -1;
+            for (; p < e; p++) {
+                b = buf.get(p);
+                if (b >= '0' && b <= '9') {
+                    if (m == 0 && b == '0' && frac < 0) { digits = Math.max(digits, 1); continue; }
+                    if (++digits > 15) break;
+                    m = m * 10 + (b - '0');
+                    if (frac >= 0) frac++;
+                } else if ((b == '.' || b == ',') && frac < 0) {
+                    frac = 0;
+                } else break;
+            }
+            if (p == e && digits > 0) {
+                double v = frac > 0 ? m / POW10[frac] : m;
+                return neg ? -v : v;
+            }
+        }
+        return Double.parseDouble(string(i).replace(',', '.'));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (resource != null) resource.close();
+    }
+
+    /** Finds the next complete record in the buffer; false if it runs past the buffered bytes. */
+    private boolean tokenize() {
+        int limit = buf.limit();
+        int p = pos;
+        fields = 0;
+        int start = p;
+        boolean inQuotes = false, hasQuote = false;
+        int lines = 1;
+        while (p < limit) {
+            byte b = buf.get(p);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+                hasQuote = true;
+            } else if (inQuotes) {
+                if (b == '\n') lines++;
+            } else if (b == ',') {
+                addField(start, p, hasQuote);
+                start = p + 1;
+                hasQuote = false;
+            } else if (b == '\n' || b == '\r') {
+                if (b == '\r') {
+                    if (p + 1 >= limit && !eof) return false;
+                    if (p + 1 < limit && buf.get(p + 1) == '\n') {
+                        addField(start, p, hasQuote);
+                        return consume(p + 2, lines);
+                    }
+                }
+                addField(start, p, hasQuote);
+                return consume(p + 1, lines);
+            }
+            p++;
+        }
+        return false;
+    }
+
+    /** The input ended without a line break after the last record. */
+    private void finishLast() {
+        int limit = buf.limit();
+        fields = 0;
+        int start = pos;
+        boolean inQuotes = false, hasQuote = false;
+        int lines = 1;
+        for (int p = pos; p < limit; p++) {
+            byte b = buf.get(p);
+            if (b == '"') { inQuotes = !inQuotes; hasQuote = true; }
+            else if (inQuotes) { if (b == '\n') lines++; }
+            else if (b == ',') { addField(start, p, hasQuote); start = p + 1; hasQuote = false; }
+        }
+        addField(start, limit, hasQuote);
+        consume(limit, lines);
+    }
+
+    private boolean consume(int next, int lines) {
+        bytes += next - pos;
+        pos = next;
+        line += lines;
+        return true;
+    }
+
+    private void addField(int start, int end, boolean hasQuote) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+            quoted = Arrays.copyOf(quoted, fields * 2);
+        }
+        starts[fields] = start;
+        ends[fields] = end;
+        quoted[fields] = hasQuote;
+        fields++;
+    }
+
+    private void fill() throws IOException {
+        buf.position(pos);
+        buf.compact();
+        pos = 0;
+        if (!buf.hasRemaining()) {
+            ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+            buf.flip();
+            bigger.put(buf);
+            buf = bigger;
+        }
+        int n = in.read(buf);
+        if (n < 0) eof = true;
+        buf.flip();
+    }
+}
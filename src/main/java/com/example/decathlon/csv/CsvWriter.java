@@ -0,0 +1,126 @@
+package com.example.decathlon.csv;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Buffered CSV row writer that formats numbers straight into its char buffer, so a row costs no intermediate
+ * Strings. Memory use is the fixed buffer regardless of how many rows go through it. Not thread-safe.
+ */
+public final class CsvWriter implements Flushable {
+    private final Writer out;
+    private final char[] buf;
+    private int pos;
+    private long drained;
+
+    public CsvWriter(Writer out) { this(out, 8192); }
+
+    public CsvWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buf = new char[bufferSize];
+    }
+
+    /** Writes {@code s} as is, without quoting. */
+    public CsvWriter raw(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) put(s.charAt(i));
+        return this;
+    }
+
+    /** Writes {@code s} as a field, quoting it if it contains a separator, quote or line break. */
+    public CsvWriter field(String s) throws IOException {
+        if (!needsQuotes(s)) return raw(s);
+        put('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '"') put('"');
+            put(ch);
+        }
+        put('"');
+        return this;
+    }
+
+    public CsvWriter comma() throws IOException {
+        put(',');
+        return this;
+    }
+
+    public CsvWriter newline() throws IOException {
+        put('\n');
+        return this;
+    }
+
+    public CsvWriter number(long v) throws IOException {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) return raw(Long.toString(v));
+            put('-');
+            v = -v;
+        }
+        long p = 1;
+        while (p <= v / 10) p *= 10;
+        for (; p > 0; p /= 10) put((char) ('0' + v / p % 10));
+        return this;
+    }
+
+    /**
+     * Writes {@code d} the way {@code Double.toString} would, minus trailing zeros and a trailing dot. Values on the
+     * 0.01 grid (every quantized time or distance) are formatted directly; anything else goes through
+     * {@code Double.toString}.
+     */
+    public CsvWriter number(double d) throws IOException {
+        if (Math.abs(d) < 1e7) {
+            long c = Math.round(d * 100);
+            if (c / 100.0 == d && (c != 0 || Double.doubleToRawLongBits(d) == 0)) {
+                if (c < 0) {
+                    put('-');
+                    c = -c;
+                }
+                number(c / 100);
+                int frac = (int) (c % 100);
+                if (frac != 0) {
+                    put('.');
+                    put((char) ('0' + frac / 10));
+                    if (frac % 10 != 0) put((char) ('0' + frac % 10));
+                }
+                return this;
+            }
+        }
+        return raw(strip(Double.toString(d)));
+    }
+
+    /** Characters written so far, including those still buffered. */
+    public long written() { return drained + pos; }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private void put(char ch) throws IOException {
+        if (pos == buf.length) drain();
+        buf[pos++] = ch;
+    }
+
+    private void drain() throws IOException {
+        out.write(buf, 0, pos);
+        drained += pos;
+        pos = 0;
+    }
+
+    static boolean needsQuotes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') return true;
+        }
+        return false;
+    }
+
+    static String strip(String s) {
+        if (s.indexOf('.') < 0) return s;
+        int end = s.length();
+        while (s.charAt(end - 1) == '0') end--;
+        if (s.charAt(end - 1) == '.') end--;
+        return s.substring(0, end);
+    }
+}
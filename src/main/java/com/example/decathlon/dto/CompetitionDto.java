@@ -0,0 +1,3 @@
+package com.example.decathlon.dto;
+
+public record CompetitionDto(String id, String mode, int athletes, int capacity) {}
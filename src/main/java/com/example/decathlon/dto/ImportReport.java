@@ -0,0 +1,10 @@
+package com.example.decathlon.dto;
+
+public record ImportReport(long rows, long skipped, long bytes, long millis, double rowsPerSecond) {
+    public static final ImportReport EMPTY = new ImportReport(0, 0, 0, 0, 0);
+
+    public static ImportReport of(long rows, long skipped, long bytes, long nanos) {
+        double secs = nanos / 1e9;
+        return new ImportReport(rows, skipped, bytes, nanos / 1_000_000, secs > 0 ? rows / secs : 0);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.decathlon.dto;
+
+import java.util.Map;
+
+/** A standings row with its competition rank: athletes with the same total share the rank of the first of them. */
+public record RankedStandingDto(int rank, String name, Map<String,Integer> scores, int total) {}
@@ -0,0 +1,13 @@
+package com.example.decathlon.excel;
+
+/** Malformed workbook input, reported with the 1-based sheet row it was found on. */
+public class ExcelFormatException extends IllegalArgumentException {
+	private final int row;
+
+	public ExcelFormatException(int row, String message) {
+		super("Row " + row + ": " + message);
+		this.row = row;
+	}
+
+	public int row() { return row; }
+}
@@ -1,27 +1,49 @@
 package com.example.decathlon.excel;
 
-import java.io.FileOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.dto.StandingDto;
 
-public class ExcelPrinter {
+/**
+ * Streaming workbook writer. Only the last {@code window} rows of each sheet are kept on the heap; older rows are
+ * flushed to compressed temporary files, so memory use does not depend on the number of rows. Close it to delete the
+ * temporary files.
+ */
+public class ExcelPrinter implements Closeable {
+	public static final int DEFAULT_WINDOW = 100;
 
-	private XSSFWorkbook workbook;
-	private String excelName;
+	/** Excel caps sheet names at 31 characters. */
+	private static final int MAX_SHEET_NAME = 31;
 
-	public ExcelPrinter(String name) throws IOException {
-		workbook = new XSSFWorkbook();
-		excelName = name;
+	private final SXSSFWorkbook workbook;
+	private final Set<String> sheetNames = new HashSet<>();
+
+	public ExcelPrinter() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/** @param window rows per sheet kept in memory before they are flushed to disk */
+	public ExcelPrinter(int window) {
+		workbook = new SXSSFWorkbook(window);
+		workbook.setCompressTempFiles(true);
 	}
 
 	public void add(Object[][] data, String sheetName) {
 
-		XSSFSheet sheet = workbook.createSheet(sheetName);
+		SXSSFSheet sheet = workbook.createSheet(sheetName(sheetName));
 
 		int rowCount = 0;
 
@@ -33,25 +55,70 @@ public class ExcelPrinter {
 			for (Object field : aBook) {
 				Cell cell = row.createCell(columnCount);
 				columnCount++;
-				
+
 				if (field instanceof String) {
 					cell.setCellValue((String) field);
-					
-				} else if (field instanceof Integer) {
-					cell.setCellValue((Integer) field);
-					
-				} else if (field instanceof Double) {
-					cell.setCellValue((Double) field);
-					
+
+				} else if (field instanceof Number) {
+					cell.setCellValue(((Number) field).doubleValue());
+
 				}
 			}
 		}
 	}
 
-	public void write() throws IOException {
-		FileOutputStream out = new FileOutputStream("C:/Eclipse/resultat_" + excelName + ".xlsx");
+	/**
+	 * Adds one sheet with the competition's standings in rank order: rank, name, the points of every event of its
+	 * mode and the total, all numeric. Athletes with the same total share a rank.
+	 */
+	public void addStandings(Competition competition, ScoringService scoring) {
+		ScoringService.Mode mode = competition.mode();
+		List<ScoringService.EventDef> events = List.copyOf(scoring.events(mode).values());
+		SXSSFSheet sheet = workbook.createSheet(sheetName(competition.id() + " " + mode.name()));
+
+		Row header = sheet.createRow(0);
+		header.createCell(0).setCellValue("Rank");
+		header.createCell(1).setCellValue("Name");
+		for (int i = 0; i < events.size(); i++) header.createCell(2 + i).setCellValue(events.get(i).label());
+		header.createCell(2 + events.size()).setCellValue("Total");
+
+		int position = 0, rank = 0, prev = Integer.MIN_VALUE;
+		for (StandingDto s : competition.standings()) {
+			position++;
+			if (s.total() != prev) {
+				rank = position;
+				prev = s.total();
+			}
+			Row row = sheet.createRow(position);
+			row.createCell(0).setCellValue(rank);
+			row.createCell(1).setCellValue(s.name());
+			for (int i = 0; i < events.size(); i++) {
+				Integer p = s.scores().get(events.get(i).id());
+				if (p != null) row.createCell(2 + i).setCellValue(p);
+			}
+			row.createCell(2 + events.size()).setCellValue(s.total());
+		}
+	}
+
+	/** Writes the workbook to {@code out} without closing it. */
+	public void write(OutputStream out) throws IOException {
 		workbook.write(out);
+	}
+
+	@Override
+	public void close() throws IOException {
+		workbook.dispose();
 		workbook.close();
 	}
 
-}
\ No newline at end of file
+	/** A valid sheet name, made unique within the workbook by a numeric suffix. */
+	private String sheetName(String wanted) {
+		String base = WorkbookUtil.createSafeSheetName(wanted);
+		String name = base;
+		for (int n = 2; !sheetNames.add(name.toLowerCase()); n++) {
+			String suffix = " (" + n + ")";
+			name = base.substring(0, Math.min(base.length(), MAX_SHEET_NAME - suffix.length())) + suffix;
+		}
+		return name;
+	}
+}
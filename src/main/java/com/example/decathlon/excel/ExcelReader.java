@@ -1,32 +1,225 @@
 package com.example.decathlon.excel;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
-import org.apache.poi.ss.usermodel.Cell;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.csv.CsvReader;
+import com.example.decathlon.dto.ImportReport;
 
+/**
+ * Imports results from the first sheet of an {@code .xlsx} file laid out like the CSV export: a {@code MODE, <mode>}
+ * row, a {@code Name, <event ids>[, Total]} row, then one row of raw performances per athlete. The sheet is read with
+ * POI's SAX event model, so no cell objects are built; rows go into the competition's bulk import a batch at a time.
+ */
 public class ExcelReader {
-	
-	public String getCellInfo(String excelName, int sheetNumber, int rowNumber, int colNumber) throws IOException {
-		File excelfile = new File("C:/Eclipse/resultat_" + excelName + ".xlsx");
-		FileInputStream fis = new FileInputStream(excelfile);
-		
-		@SuppressWarnings("resource")
-		XSSFWorkbook wb = new XSSFWorkbook(fis);
-
-		Sheet sheet = wb.getSheetAt(sheetNumber);
-		Row row = sheet.getRow(rowNumber);
-        Cell cell = row.getCell(colNumber);
-				
-        DataFormatter dataFormatter = new DataFormatter();
-		return dataFormatter.formatCellValue(cell);
-		
+	private static final int IMPORT_BATCH = 1024;
+
+	private final CsvReader.ErrorPolicy policy;
+
+	public ExcelReader(CsvReader.ErrorPolicy policy) {
+		this.policy = policy;
+	}
+
+	/** Spools {@code in} to a temporary file first: a zip package can only be read from its central directory. */
+	public ImportReport importInto(Competition competition, InputStream in) throws IOException {
+		Path tmp = Files.createTempFile("import", ".xlsx");
+		try {
+			Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+			return importInto(competition, tmp);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Replaces all athletes of the competition with the sheet's contents. Nothing changes unless the whole sheet was
+	 * read.
+	 *
+	 * @throws ExcelFormatException under {@link CsvReader.ErrorPolicy#FAIL} for the first malformed header, name or value
+	 */
+	public ImportReport importInto(Competition competition, Path file) throws IOException {
+		long started = System.nanoTime();
+		try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+			XSSFReader reader = new XSSFReader(pkg);
+			Iterator<InputStream> sheets = reader.getSheetsData();
+			if (!sheets.hasNext()) return reject(0, "no sheets");
+			RowHandler rows = new RowHandler(competition);
+			try (InputStream sheet = sheets.next(); rows) {
+				XMLReader parser = XMLHelper.newXMLReader();
+				parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+						new ReadOnlySharedStringsTable(pkg, false), rows, new RawNumbers(), false));
+				parser.parse(new InputSource(sheet));
+				return rows.finish(Files.size(file), System.nanoTime() - started);
+			}
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException | UnsupportedFileFormatException | POIXMLException e) {
+			if (policy == CsvReader.ErrorPolicy.FAIL) throw new ExcelFormatException(0, "not a readable workbook: " + e.getMessage());
+			return ImportReport.EMPTY;
+		}
+	}
+
+	private ImportReport reject(int row, String message) {
+		if (policy == CsvReader.ErrorPolicy.FAIL) throw new ExcelFormatException(row, message);
+		return ImportReport.EMPTY;
+	}
+
+	/** Keeps numbers as Excel stores them instead of rounding them to the cell's display format. */
+	private static final class RawNumbers extends DataFormatter {
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString) {
+			return NumberToTextConverter.toText(value);
+		}
 	}
 
+	/** Collects each row's cells by column, then feeds the row to the header checks or the current batch. */
+	private final class RowHandler implements XSSFSheetXMLHandler.SheetContentsHandler, AutoCloseable {
+		private final Competition competition;
+		private String[] cells = new String[16];
+		private int width;
+		private int headers;
+		private boolean rejected;
+		private ScoringService.Mode mode;
+		private String[] ids;
+		private Competition.Import imp;
+		private String[] names;
+		private double[] values;
+		private int batched;
+		private long rows, skipped;
+
+		RowHandler(Competition competition) {
+			this.competition = competition;
+			this.mode = competition.mode();
+		}
+
+		@Override
+		public void startRow(int rowNum) {
+			Arrays.fill(cells, 0, width, null);
+			width = 0;
+		}
+
+		@Override
+		public void cell(String ref, String value, XSSFComment comment) {
+			int col = column(ref);
+			if (col >= cells.length) cells = Arrays.copyOf(cells, Math.max(col + 1, cells.length * 2));
+			cells[col] = value;
+			width = Math.max(width, col + 1);
+		}
+
+		@Override
+		public void endRow(int rowNum) {
+			if (rejected || width == 0) return;
+			int line = rowNum + 1;
+			if (headers == 0) {
+				headers++;
+				if (!"MODE".equals(cell(0))) {
+					reject(line, "missing MODE header");
+					rejected = true;
+					return;
+				}
+				try { mode = ScoringService.Mode.valueOf(cell(1).toUpperCase()); }
+				catch (Exception e) { if (policy == CsvReader.ErrorPolicy.FAIL) throw new ExcelFormatException(line, "unknown mode " + cell(1)); }
+			} else if (headers == 1) {
+				headers++;
+				if (width < 2 || !"Name".equals(cell(0))) {
+					reject(line, "bad header");
+					rejected = true;
+					return;
+				}
+				List<String> cols = new ArrayList<>();
+				for (int i = 1; i < width; i++) {
+					String col = cell(i);
+					if ("Total".equalsIgnoreCase(col)) break;
+					cols.add(col);
+				}
+				ids = cols.toArray(new String[0]);
+				names = new String[IMPORT_BATCH];
+				values = new double[IMPORT_BATCH * ids.length];
+				imp = competition.beginImport(mode, ids);
+			} else {
+				row(line);
+			}
+		}
+
+		private void row(int line) {
+			String name = cell(0);
+			if (name.isEmpty()) {
+				if (policy == CsvReader.ErrorPolicy.FAIL) throw new ExcelFormatException(line, "missing name");
+				skipped++;
+				return;
+			}
+			int off = batched * ids.length;
+			for (int j = 0; j < ids.length; j++) {
+				String s = cell(j + 1);
+				double v = Double.NaN;
+				if (!s.isEmpty()) {
+					try { v = Double.parseDouble(s.replace(',', '.')); }
+					catch (NumberFormatException e) {
+						if (policy == CsvReader.ErrorPolicy.FAIL) throw new ExcelFormatException(line, "bad value for " + ids[j]);
+					}
+				}
+				values[off + j] = v;
+			}
+			names[batched++] = name;
+			if (batched == IMPORT_BATCH) {
+				imp.add(names, values, batched);
+				batched = 0;
+			}
+			rows++;
+		}
+
+		/** Zero-based column of a reference such as {@code AB12}, without CellReference's regex. */
+		private int column(String ref) {
+			int col = 0;
+			for (int i = 0; i < ref.length(); i++) {
+				char ch = ref.charAt(i);
+				if (ch < 'A' || ch > 'Z') break;
+				col = col * 26 + (ch - 'A' + 1);
+			}
+			return col - 1;
+		}
+
+		private String cell(int i) {
+			String s = i < width ? cells[i] : null;
+			return s == null ? "" : s.trim();
+		}
+
+		ImportReport finish(long bytes, long nanos) {
+			if (imp == null) return rejected ? ImportReport.EMPTY : reject(headers + 1, headers == 0 ? "missing MODE header" : "bad header");
+			imp.add(names, values, batched);
+			imp.commit();
+			return ImportReport.of(rows, skipped, bytes, nanos);
+		}
+
+		/** Abandons the import unless {@link #finish} committed it. */
+		@Override
+		public void close() {
+			if (imp != null) imp.close();
+		}
+	}
 }
@@ -1,18 +1,41 @@
 package com.example.decathlon.gui;
 
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
 import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.core.StandingsListener;
+import com.example.decathlon.csv.CsvFormatException;
+import com.example.decathlon.csv.CsvReader;
+import com.example.decathlon.dto.ImportReport;
+import com.example.decathlon.dto.StandingDto;
+import com.example.decathlon.jfr.StandingsReloadEvent;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableColumnModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Desktop front end over the same {@link CompetitionService} engine the REST API runs: results, scoring, standings
+ * and CSV all go through the engine's default competition, and the table follows it through a
+ * {@link StandingsListener}.
+ */
 public class MainGUI {
+    private static final int MIN_COLUMN_WIDTH = 80;
+    private static final int MAX_COLUMN_WIDTH = 220;
+    /** Rows measured per column when a whole range changes; wider ranges are sampled evenly. */
+    private static final int WIDTH_SAMPLE = 64;
+
     private final ScoringService scoring = new ScoringService();
+    private final CompetitionService engine = new CompetitionService(scoring);
+    private final Competition competition = engine.getDefault();
 
     private JTextField nameField;
     private JTextField resultField;
@@ -22,10 +45,11 @@ public class MainGUI {
     private JTextArea outputArea;
 
     private JTable standingsTable;
-    private DefaultTableModel standingsModel;
+    private StandingsTableModel standingsModel;
+    /** Widest cell seen per column since the columns were last rebuilt; widths only grow until then. */
+    private int[] columnWidths = new int[0];
 
     private final Map<String, String> labelToId = new LinkedHashMap<>();
-    private final Map<String, Map<String, Double>> rawResultsByAthlete = new LinkedHashMap<>();
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new MainGUI().createAndShowGUI());
@@ -93,7 +117,9 @@ public class MainGUI {
         topPanel.add(logScroll);
 
         // --- Standings section (bottom) ---
-        standingsModel = new DefaultTableModel();
+        standingsModel = new StandingsTableModel();
+        // Registered before the table so it runs after the table has rebuilt its columns.
+        standingsModel.addTableModelListener(this::sizeColumns);
         standingsTable = new JTable(standingsModel);
         standingsTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
         JScrollPane standingsScroll = new JScrollPane(standingsTable);
@@ -104,8 +130,15 @@ public class MainGUI {
         root.add(standingsScroll, BorderLayout.CENTER);
 
         frame.setContentPane(root);
+        engine.setStandingsListener(new StandingsListener() {
+            @Override
+            public void changed(Competition c, String athlete, String event) { onEdt(() -> applyChange(athlete, event)); }
+
+            @Override
+            public void reset(Competition c) { onEdt(MainGUI.this::reloadStandings); }
+        });
         rebuildEventList();
-        rebuildStandingsColumns();
+        reloadStandings();
         frame.setVisible(true);
     }
 
@@ -115,11 +148,16 @@ public class MainGUI {
         catch (Exception e) { return ScoringService.Mode.DEC; }
     }
 
+    /** Picking another mode starts an empty competition in it; a mode the engine already has just redraws. */
     private void onModeChanged(ActionEvent e) {
-        rawResultsByAthlete.clear();
+        ScoringService.Mode mode = currentMode();
+        if (competition.mode() != mode) {
+            try (Competition.Import empty = competition.beginImport(mode, new String[0])) {
+                empty.commit();
+            }
+        }
         rebuildEventList();
-        rebuildStandingsColumns();
-        refreshStandings();
+        reloadStandings();
     }
 
     private void rebuildEventList() {
@@ -145,15 +183,14 @@ public class MainGUI {
             JOptionPane.showMessageDialog(null, "Enter a name.", "Missing name", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        rawResultsByAthlete.putIfAbsent(name, new HashMap<>());
+        competition.addCompetitor(name);
         outputArea.append("Added competitor: " + name + "\n");
         nameField.setText("");
-        refreshStandings();
     }
 
     private void saveResult(ActionEvent e) {
         String name = nameField.getText().trim();
-        if (name.isEmpty() || !rawResultsByAthlete.containsKey(name)) {
+        if (name.isEmpty() || competition.athlete(name) == null) {
             JOptionPane.showMessageDialog(null, "Add competitor first.", "No competitor", JOptionPane.ERROR_MESSAGE);
             return;
         }
@@ -170,8 +207,7 @@ public class MainGUI {
             return;
         }
 
-        int score = scoring.score(currentMode(), eventId, raw);
-        rawResultsByAthlete.get(name).put(eventId, raw);
+        int score = competition.score(name, eventId, raw, currentMode().name());
 
         var def = scoring.get(currentMode(), eventId);
         outputArea.append("Competitor: " + name + "\n");
@@ -181,10 +217,54 @@ public class MainGUI {
         outputArea.append("Score: " + score + "\n\n");
 
         resultField.setText("");
-        refreshStandings();
     }
 
-    // --- Standings & helpers (identiskt som tidigare) ---
+    // --- Standings & helpers ---
+    private static void onEdt(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) r.run();
+        else SwingUtilities.invokeLater(r);
+    }
+
+    /** Copies one changed row from the engine into the table; {@code event} is null for a new athlete. */
+    private void applyChange(String athlete, String event) {
+        standingsModel.add(athlete);
+        if (event == null) return;
+        int col = eventOrderIds().indexOf(event);
+        StandingDto row = competition.standing(athlete);
+        Integer pts = row == null ? null : row.scores().get(event);
+        if (col >= 0 && pts != null) standingsModel.setPoints(athlete, col, pts);
+    }
+
+    /**
+     * Reloads the whole table from the engine in insertion order, after an import or a mode switch. If the engine's
+     * mode differs from the selected one, the selection follows it and the mode listener reloads instead.
+     */
+    private void reloadStandings() {
+        if (competition.mode() != currentMode()) {
+            modeBox.setSelectedItem(competition.mode().name());
+            return;
+        }
+        StandingsReloadEvent jfr = new StandingsReloadEvent();
+        jfr.begin();
+        standingsModel.setEvents(eventOrderLabels());
+        List<String> ids = eventOrderIds();
+        List<String> names = new ArrayList<>(competition.size());
+        int[] points = new int[competition.size() * ids.size()];
+        int k = 0;
+        for (var a : competition.athletes()) {
+            if (k + ids.size() > points.length) points = Arrays.copyOf(points, (k + ids.size()) * 2);
+            StandingDto row = competition.standing(a.name());
+            Map<String, Integer> scores = row == null ? Map.of() : row.scores();
+            for (String id : ids) {
+                Integer p = scores.get(id);
+                points[k++] = p == null ? StandingsTableModel.MISSING : p;
+            }
+            names.add(a.name());
+        }
+        standingsModel.load(names, points);
+        jfr.end(currentMode().name(), names.size(), ids.size());
+    }
+
     private List<String> eventOrderIds() {
         return scoring.events(currentMode()).values()
                 .stream().map(ScoringService.EventDef::id).toList();
@@ -195,112 +275,59 @@ public class MainGUI {
                 .stream().map(ScoringService.EventDef::label).toList();
     }
 
-    private void rebuildStandingsColumns() {
-        List<String> labels = eventOrderLabels();
-        List<String> cols = new ArrayList<>();
-        cols.add("Rank");
-        cols.add("Name");
-        cols.addAll(labels);
-        cols.add("Total");
-        standingsModel.setDataVector(new Object[0][0], cols.toArray());
-        autoSizeColumns();
-    }
-
-    private void refreshStandings() {
-        Map<String, Integer> totals = new HashMap<>();
-        Map<String, Map<String, Integer>> perEventPoints = new HashMap<>();
-        ScoringService.Mode mode = currentMode();
-        List<String> ids = eventOrderIds();
-
-        for (var entry : rawResultsByAthlete.entrySet()) {
-            String name = entry.getKey();
-            Map<String, Double> rawMap = entry.getValue();
-            int sum = 0;
-            Map<String, Integer> ptsMap = new HashMap<>();
-            for (String id : ids) {
-                Double raw = rawMap.get(id);
-                if (raw != null) {
-                    int pts = scoring.score(mode, id, raw);
-                    ptsMap.put(id, pts);
-                    sum += pts;
-                }
+    /**
+     * Grows column widths to fit the cells a model event touched. Only the changed rows are measured, and a
+     * bulk change is measured on an even sample of {@link #WIDTH_SAMPLE} rows rather than every cell.
+     */
+    private void sizeColumns(TableModelEvent e) {
+        int cols = standingsTable.getColumnCount();
+        if (e.getFirstRow() == TableModelEvent.HEADER_ROW || columnWidths.length != cols) {
+            columnWidths = new int[cols];
+            Arrays.fill(columnWidths, MIN_COLUMN_WIDTH);
+            for (int col = 0; col < cols; col++) {
+                var header = standingsTable.getTableHeader().getDefaultRenderer().getTableCellRendererComponent(
+                        standingsTable, standingsModel.getColumnName(col), false, false, -1, col);
+                columnWidths[col] = Math.min(Math.max(header.getPreferredSize().width + 16, MIN_COLUMN_WIDTH), MAX_COLUMN_WIDTH);
             }
-            perEventPoints.put(name, ptsMap);
-            totals.put(name, sum);
+            applyColumnWidths();
+            if (e.getFirstRow() == TableModelEvent.HEADER_ROW) return;
         }
-
-        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(totals.entrySet());
-        sorted.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
-
-        List<Object[]> rows = new ArrayList<>();
-        int rank = 0;
-        int prevScore = Integer.MIN_VALUE;
-        int position = 0;
-        for (var e : sorted) {
-            position++;
-            int total = e.getValue();
-            if (total != prevScore) {
-                rank = position;
-                prevScore = total;
-            }
-            List<Object> row = new ArrayList<>();
-            row.add(rank);
-            row.add(e.getKey());
-            Map<String, Integer> pts = perEventPoints.getOrDefault(e.getKey(), Map.of());
-            for (String id : ids) {
-                Integer p = pts.get(id);
-                row.add(p == null ? "" : p);
+        if (e.getType() == TableModelEvent.DELETE) return;
+        int rows = standingsTable.getRowCount();
+        int first = Math.max(e.getFirstRow(), 0);
+        int last = Math.min(e.getLastRow(), rows - 1);
+        if (first > last) return;
+        int step = Math.max(1, (last - first + 1) / WIDTH_SAMPLE);
+        boolean grew = false;
+        for (int row = first; row <= last; row += step) {
+            for (int col = 0; col < cols; col++) {
+                if (columnWidths[col] >= MAX_COLUMN_WIDTH) continue;
+                Component comp = standingsTable.prepareRenderer(standingsTable.getCellRenderer(row, col), row, col);
+                int width = Math.min(comp.getPreferredSize().width + 16, MAX_COLUMN_WIDTH);
+                if (width > columnWidths[col]) {
+                    columnWidths[col] = width;
+                    grew = true;
+                }
             }
-            row.add(total);
-            rows.add(row.toArray());
         }
-
-        standingsModel.setRowCount(0);
-        for (Object[] r : rows) standingsModel.addRow(r);
-        autoSizeColumns();
+        if (grew) applyColumnWidths();
     }
 
-    private void autoSizeColumns() {
-        for (int col = 0; col < standingsTable.getColumnCount(); col++) {
-            int width = 80;
-            for (int row = 0; row < standingsTable.getRowCount(); row++) {
-                Component comp = standingsTable.prepareRenderer(standingsTable.getCellRenderer(row, col), row, col);
-                width = Math.max(comp.getPreferredSize().width + 16, width);
-            }
-            standingsTable.getColumnModel().getColumn(col).setPreferredWidth(Math.min(width, 220));
+    private void applyColumnWidths() {
+        TableColumnModel columns = standingsTable.getColumnModel();
+        for (int col = 0; col < columnWidths.length && col < columns.getColumnCount(); col++) {
+            columns.getColumn(col).setPreferredWidth(columnWidths[col]);
         }
     }
 
-
-
     private void exportCSV(ActionEvent e) {
         JFileChooser chooser = new JFileChooser();
         chooser.setDialogTitle("Export CSV");
         if (chooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) return;
 
         File file = ensureCsvExtension(chooser.getSelectedFile());
-        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
-            pw.println("MODE," + currentMode().name());
-            List<String> ids = eventOrderIds();
-            List<String> header = new ArrayList<>();
-            header.add("Name");
-            header.addAll(ids);
-            header.add("Total");
-            pw.println(String.join(",", header));
-
-            for (String name : rawResultsByAthlete.keySet()) {
-                Map<String, Double> rawMap = rawResultsByAthlete.get(name);
-                List<String> cells = new ArrayList<>();
-                cells.add(escapeCsv(name));
-                int total = 0;
-                for (String id : ids) {
-                    Double raw = rawMap.get(id);
-                    cells.add(raw == null ? "" : stripTrailingZeros(raw));
-                    if (raw != null) total += scoring.score(currentMode(), id, raw);
-                }
-                cells.add(Integer.toString(total));
-                pw.println(String.join(",", cells));
-            }
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            competition.exportCsv(null, out);
         } catch (IOException ex) {
             JOptionPane.showMessageDialog(null, "Export failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -312,67 +339,57 @@ public class MainGUI {
         if (chooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) return;
 
         File file = chooser.getSelectedFile();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-            String first = br.readLine();
-            if (first == null || !first.startsWith("MODE,")) {
-                JOptionPane.showMessageDialog(null, "Invalid file: missing MODE header.", "Invalid CSV", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            String modeStr = first.split(",", 2)[1].trim();
-            ScoringService.Mode fileMode = ScoringService.Mode.valueOf(modeStr);
-            if (fileMode != currentMode()) {
-                modeBox.setSelectedItem(fileMode.name());
+        outputArea.append("Importing " + file.getName() + "...\n");
+        // The engine parses, stages and rescores off the EDT; its reset notification then reloads the table.
+        // A bad header rejects the file, while a cell that is not a number is left empty, as it always was here.
+        new SwingWorker<ImportReport, Void>() {
+            @Override
+            protected ImportReport doInBackground() throws IOException {
+                checkHeader(file);
+                return competition.importCsv(file.toPath(), CsvReader.ErrorPolicy.SKIP);
             }
 
-            String header = br.readLine();
-            if (header == null) {
-                JOptionPane.showMessageDialog(null, "Invalid file: missing columns.", "Invalid CSV", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            String[] cols = splitCsv(header);
-            if (cols.length < 2 || !"Name".equals(cols[0])) {
-                JOptionPane.showMessageDialog(null, "Invalid file: bad header.", "Invalid CSV", JOptionPane.ERROR_MESSAGE);
-                return;
+            @Override
+            protected void done() {
+                ImportReport report;
+                try {
+                    report = get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof CsvFormatException) {
+                        JOptionPane.showMessageDialog(null, "Invalid file: " + cause.getMessage(), "Invalid CSV", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(null, "Import failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                    return;
+                }
+                outputArea.append("Imported " + report.rows() + " competitors in " + report.millis() + " ms"
+                        + (report.skipped() > 0 ? ", skipped " + report.skipped() + " rows without a name" : "") + "\n");
+                JOptionPane.showMessageDialog(null, "Import complete.", "Import", JOptionPane.INFORMATION_MESSAGE);
             }
+        }.execute();
+    }
 
-            List<String> ids = eventOrderIds();
+    /** Rejects a file whose event columns are not exactly those of the mode it declares. */
+    private void checkHeader(File file) throws IOException {
+        try (CsvReader in = CsvReader.map(file.toPath())) {
+            if (!in.next() || !"MODE".equals(in.string(0))) throw new CsvFormatException(in.line(), "missing MODE header");
+            ScoringService.Mode fileMode;
+            try { fileMode = ScoringService.Mode.valueOf(in.string(1)); }
+            catch (RuntimeException ex) { throw new CsvFormatException(in.line(), "unknown mode " + in.string(1)); }
+            if (!in.next() || in.fields() < 2 || !"Name".equals(in.string(0))) throw new CsvFormatException(in.line(), "bad header");
             List<String> fileIds = new ArrayList<>();
-            for (int i = 1; i < cols.length; i++) {
-                if ("Total".equalsIgnoreCase(cols[i])) break;
-                fileIds.add(cols[i]);
+            for (int i = 1; i < in.fields(); i++) {
+                String col = in.string(i);
+                if ("Total".equalsIgnoreCase(col)) break;
+                fileIds.add(col);
             }
-            if (!fileIds.equals(ids)) {
-                JOptionPane.showMessageDialog(null, "Events in file do not match current mode.", "Invalid CSV", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-
-            rawResultsByAthlete.clear();
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (line.isBlank()) continue;
-                String[] c = splitCsv(line);
-                if (c.length < 1) continue;
-                String name = unescapeCsv(c[0]).trim();
-                if (name.isEmpty()) continue;
-                rawResultsByAthlete.putIfAbsent(name, new HashMap<>());
-
-                for (int i = 0; i < ids.size(); i++) {
-                    int idx = i + 1;
-                    if (idx >= c.length) break;
-                    String v = c[idx].trim();
-                    if (!v.isEmpty()) {
-                        try {
-                            double raw = Double.parseDouble(v.replace(',', '.'));
-                            rawResultsByAthlete.get(name).put(ids.get(i), raw);
-                        } catch (NumberFormatException ignore) {
-                        }
-                    }
-                }
+            if (!fileIds.equals(new ArrayList<>(scoring.events(fileMode).keySet()))) {
+                throw new CsvFormatException(in.line(), "Events in file do not match current mode.");
             }
-            refreshStandings();
-            JOptionPane.showMessageDialog(null, "Import complete.", "Import", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(null, "Import failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
@@ -381,60 +398,4 @@ public class MainGUI {
         if (!n.endsWith(".csv")) return new File(f.getParentFile(), f.getName() + ".csv");
         return f;
     }
-
-    private static String stripTrailingZeros(double d) {
-        String s = Double.toString(d);
-        if (s.contains(".")) {
-            while (s.endsWith("0")) s = s.substring(0, s.length() - 1);
-            if (s.endsWith(".")) s = s.substring(0, s.length() - 1);
-        }
-        return s;
-    }
-
-    private static String escapeCsv(String s) {
-        if (s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r")) {
-            return "\"" + s.replace("\"", "\"\"") + "\"";
-        }
-        return s;
-    }
-
-    private static String unescapeCsv(String s) {
-        String t = s.trim();
-        if (t.startsWith("\"") && t.endsWith("\"") && t.length() >= 2) {
-            t = t.substring(1, t.length() - 1).replace("\"\"", "\"");
-        }
-        return t;
-    }
-
-    private static String[] splitCsv(String line) {
-        List<String> parts = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder cur = new StringBuilder();
-        for (int i = 0; i < line.length(); i++) {
-            char ch = line.charAt(i);
-            if (inQuotes) {
-                if (ch == '"') {
-                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                        cur.append('"');
-                        i++;
-                    } else {
-                        inQuotes = false;
-                    }
-                } else {
-                    cur.append(ch);
-                }
-            } else {
-                if (ch == ',') {
-                    parts.add(cur.toString());
-                    cur.setLength(0);
-                } else if (ch == '"') {
-                    inQuotes = true;
-                } else {
-                    cur.append(ch);
-                }
-            }
-        }
-        parts.add(cur.toString());
-        return parts.toArray(new String[0]);
-    }
 }
@@ -0,0 +1,204 @@
+package com.example.decathlon.gui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Standings table backed by a columnar points store. Athletes live in slots assigned in insertion order; per-event
+ * points sit in one flat {@code int[]} and the display order is a slot permutation kept sorted by total descending,
+ * then slot. A changed result moves only its own row and fires events for the rows it actually touched.
+ */
+final class StandingsTableModel extends AbstractTableModel {
+    static final int MISSING = -1;
+
+    private static final int FIXED_LEADING = 2;
+
+    private String[] labels = new String[0];
+    private int events;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] names = new String[16];
+    private int[] points = new int[0];
+    private int[] totals = new int[16];
+    /** Display row to slot. */
+    private int[] order = new int[16];
+    /** Slot to display row. */
+    private int[] rowOf = new int[16];
+    /** Competition rank per display row; athletes with the same total share the rank of the first of them. */
+    private int[] ranks = new int[16];
+    private int size;
+
+    /** Replaces the event columns and drops every athlete. */
+    void setEvents(List<String> eventLabels) {
+        labels = eventLabels.toArray(new String[0]);
+        events = labels.length;
+        clearRows();
+        points = new int[names.length * events];
+        fireTableStructureChanged();
+    }
+
+    /**
+     * Replaces every athlete at once. {@code pts} holds {@code names.size() * events} entries, row-major, with
+     * {@link #MISSING} for events without a result.
+     */
+    void load(List<String> athletes, int[] pts) {
+        clearRows();
+        ensureCapacity(athletes.size());
+        for (String name : athletes) {
+            int slot = size;
+            names[slot] = name;
+            slots.put(name, slot);
+            System.arraycopy(pts, slot * events, points, slot * events, events);
+            totals[slot] = sum(slot);
+            size++;
+        }
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++) sorted[i] = i;
+        Arrays.sort(sorted, (a, b) -> compare(a, b));
+        for (int r = 0; r < size; r++) {
+            order[r] = sorted[r];
+            rowOf[sorted[r]] = r;
+        }
+        rerank(0, size - 1);
+        fireTableDataChanged();
+    }
+
+    /** Adds an athlete with no results unless it is already present; returns its slot. */
+    int add(String name) {
+        Integer existing = slots.get(name);
+        if (existing != null) return existing;
+        ensureCapacity(size + 1);
+        int slot = size;
+        names[slot] = name;
+        slots.put(name, slot);
+        Arrays.fill(points, slot * events, (slot + 1) * events, MISSING);
+        totals[slot] = 0;
+        int row = insertionRow(slot, 0, size);
+        System.arraycopy(order, row, order, row + 1, size - row);
+        order[row] = slot;
+        size++;
+        for (int r = row; r < size; r++) rowOf[order[r]] = r;
+        fireTableRowsInserted(row, row);
+        int last = rerank(row, size - 1);
+        if (last > row) fireTableRowsUpdated(row + 1, last);
+        return slot;
+    }
+
+    /** Sets one event's points for an athlete already in the model and moves its row if the total changed. */
+    void setPoints(String name, int event, int pts) {
+        int slot = slots.get(name);
+        int old = points[slot * events + event];
+        if (old == pts) return;
+        points[slot * events + event] = pts;
+        int total = totals[slot] - Math.max(old, 0) + Math.max(pts, 0);
+        int from = rowOf[slot];
+        if (total == totals[slot]) {
+            fireTableRowsUpdated(from, from);
+            return;
+        }
+        totals[slot] = total;
+        int to;
+        if (from > 0 && compare(slot, order[from - 1]) < 0) {
+            to = insertionRow(slot, 0, from);
+            System.arraycopy(order, to, order, to + 1, from - to);
+        } else if (from < size - 1 && compare(slot, order[from + 1]) > 0) {
+            to = insertionRow(slot, from + 1, size) - 1;
+            System.arraycopy(order, from + 1, order, from, to - from);
+        } else {
+            to = from;
+        }
+        order[to] = slot;
+        int lo = Math.min(from, to), hi = Math.max(from, to);
+        for (int r = lo; r <= hi; r++) rowOf[order[r]] = r;
+        // JTable has no row-move event; an update over the shifted range repaints only what is visible of it.
+        hi = Math.max(hi, rerank(lo, hi));
+        fireTableRowsUpdated(lo, hi);
+    }
+
+    @Override
+    public int getRowCount() { return size; }
+
+    @Override
+    public int getColumnCount() { return FIXED_LEADING + events + 1; }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column == 0) return "Rank";
+        if (column == 1) return "Name";
+        if (column == FIXED_LEADING + events) return "Total";
+        return labels[column - FIXED_LEADING];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 1 ? String.class : Object.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int slot = order[row];
+        if (column == 0) return ranks[row];
+        if (column == 1) return names[slot];
+        if (column == FIXED_LEADING + events) return totals[slot];
+        int p = points[slot * events + column - FIXED_LEADING];
+        return p == MISSING ? "" : p;
+    }
+
+    private void clearRows() {
+        slots.clear();
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+    }
+
+    private int sum(int slot) {
+        int total = 0;
+        for (int i = slot * events, end = i + events; i < end; i++) {
+            if (points[i] != MISSING) total += points[i];
+        }
+        return total;
+    }
+
+    /** Rank order: total descending, then insertion order. */
+    private int compare(int a, int b) {
+        int c = Integer.compare(totals[b], totals[a]);
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+
+    /** First row in {@code [lo, hi)} whose athlete ranks after {@code slot}. */
+    private int insertionRow(int slot, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(order[mid], slot) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Recomputes ranks from {@code lo} through {@code hi}, then past {@code hi} for as long as they keep changing.
+     * Returns the last row whose rank was recomputed.
+     */
+    private int rerank(int lo, int hi) {
+        int r = lo;
+        for (; r < size; r++) {
+            int rank = r > 0 && totals[order[r]] == totals[order[r - 1]] ? ranks[r - 1] : r + 1;
+            if (r > hi && ranks[r] == rank) break;
+            ranks[r] = rank;
+        }
+        return r - 1;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= names.length && n * events <= points.length) return;
+        int cap = Math.max(n, names.length * 2);
+        names = Arrays.copyOf(names, cap);
+        totals = Arrays.copyOf(totals, cap);
+        order = Arrays.copyOf(order, cap);
+        rowOf = Arrays.copyOf(rowOf, cap);
+        ranks = Arrays.copyOf(ranks, cap);
+        points = Arrays.copyOf(points, cap * events);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.decathlon.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A CSV export written to its destination. */
+@Name("com.example.decathlon.CsvExport")
+@Label("CSV Export")
+@Category({"Decathlon", "CSV"})
+@Description("A CSV export written to its destination")
+public final class CsvExportEvent extends jdk.jfr.Event {
+    @Label("Competition")
+    String competition;
+    @Label("Mode")
+    String mode;
+    @Label("Rows")
+    long rows;
+    @Label("Characters")
+    long characters;
+
+    public void end(String competition, String mode, long rows, long characters) {
+        if (!shouldCommit()) return;
+        this.competition = competition;
+        this.mode = mode;
+        this.rows = rows;
+        this.characters = characters;
+        commit();
+    }
+}
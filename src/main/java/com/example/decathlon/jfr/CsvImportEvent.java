@@ -0,0 +1,36 @@
+package com.example.decathlon.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A CSV import, from reading the header to the commit of the staged athletes. */
+@Name("com.example.decathlon.CsvImport")
+@Label("CSV Import")
+@Category({"Decathlon", "CSV"})
+@Description("A CSV import, from reading the header to rescoring the imported athletes")
+public final class CsvImportEvent extends jdk.jfr.Event {
+    @Label("Competition")
+    String competition;
+    @Label("Mode")
+    String mode;
+    @Label("Rows")
+    long rows;
+    @Label("Skipped Rows")
+    long skipped;
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    public void end(String competition, String mode, long rows, long skipped, long bytes) {
+        if (!shouldCommit()) return;
+        this.competition = competition;
+        this.mode = mode;
+        this.rows = rows;
+        this.skipped = skipped;
+        this.bytes = bytes;
+        commit();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.decathlon.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Summarizes a Flight Recorder file for the scoring and CSV pipelines: per decathlon event type the count and duration
+ * percentiles, the slowest individual operations with their fields, and the allocation hot spots, i.e. the decathlon
+ * methods that sampled allocations ({@code jdk.ObjectAllocationSample}) were made from or under, by sampled weight.
+ *
+ * <p>Run with {@code java -cp <classpath> com.example.decathlon.jfr.JfrReport recording.jfr [top]}.
+ */
+public final class JfrReport {
+    private static final String PREFIX = "com.example.decathlon.";
+
+    private JfrReport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: JfrReport <recording.jfr> [top]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        int top = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Map<String, List<RecordedEvent>> operations = new TreeMap<>();
+        Map<String, long[]> allocations = new HashMap<>();
+        long allocated = 0;
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent e = recording.readEvent();
+                String type = e.getEventType().getName();
+                if (type.startsWith(PREFIX)) {
+                    operations.computeIfAbsent(type.substring(PREFIX.length()), k -> new ArrayList<>()).add(e);
+                } else if (type.equals("jdk.ObjectAllocationSample")) {
+                    String site = site(e.getStackTrace());
+                    if (site == null) continue;
+                    long weight = e.getLong("weight");
+                    long[] w = allocations.computeIfAbsent(site, k -> new long[2]);
+                    w[0] += weight;
+                    w[1]++;
+                    allocated += weight;
+                }
+            }
+        }
+
+        System.out.printf("%s%n%n%-18s %8s %10s %9s %9s %9s%n", file, "operation", "count", "total ms", "p50 ms",
+                "p99 ms", "max ms");
+        List<RecordedEvent> all = new ArrayList<>();
+        for (var entry : operations.entrySet()) {
+            List<RecordedEvent> events = entry.getValue();
+            events.sort(Comparator.comparing(RecordedEvent::getDuration));
+            double total = 0;
+            for (RecordedEvent e : events) total += millis(e);
+            System.out.printf("%-18s %8d %10.1f %9.3f %9.3f %9.3f%n", entry.getKey(), events.size(), total,
+                    millis(percentile(events, 0.50)), millis(percentile(events, 0.99)), millis(events.get(events.size() - 1)));
+            all.addAll(events);
+        }
+
+        all.sort(Comparator.comparing(RecordedEvent::getDuration, Comparator.reverseOrder()));
+        System.out.printf("%nSlowest %d operations%n", Math.min(top, all.size()));
+        for (RecordedEvent e : all.subList(0, Math.min(top, all.size()))) {
+            System.out.printf("%10.3f ms  %-16s %s%n", millis(e), e.getEventType().getName().substring(PREFIX.length()),
+                    fields(e));
+        }
+
+        List<Map.Entry<String, long[]>> sites = new ArrayList<>(allocations.entrySet());
+        sites.sort(Comparator.comparingLong((Map.Entry<String, long[]> s) -> s.getValue()[0]).reversed());
+        System.out.printf("%nAllocation hot spots (sampled, %.1f MB under decathlon code)%n%10s %7s %8s  %s%n",
+                allocated / 1e6, "MB", "share", "samples", "site");
+        for (var s : sites.subList(0, Math.min(top, sites.size()))) {
+            long[] w = s.getValue();
+            System.out.printf("%10.1f %6.1f%% %8d  %s%n", w[0] / 1e6, 100.0 * w[0] / allocated, w[1], s.getKey());
+        }
+    }
+
+    /** The innermost decathlon frame of an allocation, or null if it was not made under decathlon code. */
+    private static String site(RecordedStackTrace stack) {
+        if (stack == null) return null;
+        for (RecordedFrame f : stack.getFrames()) {
+            String type = f.getMethod().getType().getName();
+            if (type.startsWith(PREFIX) && !type.startsWith(PREFIX + "jfr.")) {
+                return type.substring(PREFIX.length()) + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+            }
+        }
+        return null;
+    }
+
+    private static RecordedEvent percentile(List<RecordedEvent> sorted, double p) {
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+
+    private static double millis(RecordedEvent e) { return e.getDuration().toNanos() / 1e6; }
+
+    private static String fields(RecordedEvent e) {
+        StringJoiner out = new StringJoiner(" ");
+        for (var field : e.getFields()) {
+            String name = field.getName();
+            if (name.equals("startTime") || name.equals("duration") || name.equals("eventThread")
+                    || name.equals("stackTrace")) continue;
+            Object value = e.getValue(name);
+            if (value != null) out.add(name + "=" + value);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.decathlon.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A single result or a batch of results recorded into a competition, including the standings update. */
+@Name("com.example.decathlon.Score")
+@Label("Score")
+@Category({"Decathlon", "Scoring"})
+@Description("Results recorded into a competition, including the standings update")
+@StackTrace(false)
+public final class ScoreEvent extends jdk.jfr.Event {
+    @Label("Competition")
+    String competition;
+    @Label("Mode")
+    String mode;
+    @Label("Event")
+    @Description("The event scored, or null for a batch")
+    String event;
+    @Label("Results")
+    int results;
+    @Label("Athletes")
+    int athletes;
+
+    public void end(String competition, String mode, String event, int results, int athletes) {
+        if (!shouldCommit()) return;
+        this.competition = competition;
+        this.mode = mode;
+        this.event = event;
+        this.results = results;
+        this.athletes = athletes;
+        commit();
+    }
+}
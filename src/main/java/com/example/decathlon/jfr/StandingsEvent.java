@@ -0,0 +1,30 @@
+package com.example.decathlon.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A snapshot of a competition's standings. */
+@Name("com.example.decathlon.Standings")
+@Label("Standings")
+@Category({"Decathlon", "Standings"})
+@Description("A snapshot of a competition's standings")
+@StackTrace(false)
+public final class StandingsEvent extends jdk.jfr.Event {
+    @Label("Competition")
+    String competition;
+    @Label("Mode")
+    String mode;
+    @Label("Athletes")
+    int athletes;
+
+    public void end(String competition, String mode, int athletes) {
+        if (!shouldCommit()) return;
+        this.competition = competition;
+        this.mode = mode;
+        this.athletes = athletes;
+        commit();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.decathlon.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** The desktop front end reloading its whole standings table on the event dispatch thread. */
+@Name("com.example.decathlon.StandingsReload")
+@Label("Standings Table Reload")
+@Category({"Decathlon", "GUI"})
+@Description("The desktop standings table reloaded from the engine on the event dispatch thread")
+@StackTrace(false)
+public final class StandingsReloadEvent extends jdk.jfr.Event {
+    @Label("Mode")
+    String mode;
+    @Label("Athletes")
+    int athletes;
+    @Label("Events")
+    int events;
+
+    public void end(String mode, int athletes, int events) {
+        if (!shouldCommit()) return;
+        this.mode = mode;
+        this.athletes = athletes;
+        this.events = events;
+        commit();
+    }
+}
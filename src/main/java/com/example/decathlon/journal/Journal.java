@@ -0,0 +1,518 @@
+package com.example.decathlon.journal;
+
+import com.example.decathlon.core.ChangeLog;
+import com.example.decathlon.core.ScoringService;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped operation log. Records go into fixed-size segment files named after their first sequence
+ * number (LSN); a background flusher forces dirty pages to disk, and with {@link Sync#GROUP} every writer waits for
+ * the flush that covers its record, so concurrent writers share one fsync.
+ *
+ * <p>Record layout: {@code int length, long lsn, byte type, string competition, payload, padding,
+ * int crc32c(lsn..padding)}, zero-padded to a multiple of four bytes.
+ * A zero length marks the end of a segment; a bad checksum or a gap in the LSNs marks a torn write and ends replay.
+ *
+ * <p>All competitions share one journal, but writers only serialize to reserve an LSN and a slice of the segment:
+ * they encode, apply and copy their records concurrently, and write a record's length last, so the flusher finds the
+ * records written so far by following lengths up to the first that is still zero. Callers order conflicting changes
+ * among themselves, see {@link ChangeLog}.
+ */
+public class Journal implements ChangeLog, AutoCloseable {
+    public enum Sync {
+        /** Writers return once their record is on disk; records written together share one force. */
+        GROUP,
+        /** Writers return as soon as the record is in the mapping; the flusher forces it shortly after. */
+        ASYNC
+    }
+
+    private static final int MAGIC = 0x444a524e; // "DJRN"
+    private static final int VERSION = 3;
+    private static final int HEADER = 8;
+    private static final int RECORD_OVERHEAD = 4 + 8 + 1 + 4;
+    private static final long ASYNC_INTERVAL_NANOS = 10_000_000;
+    /** Records are padded to this alignment, so their length can be published atomically through {@link #LENGTH}. */
+    private static final int ALIGN = 4;
+    private static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final byte ADD = 1, SCORE = 2, IMPORT_BEGIN = 3, IMPORT_ROWS = 4, IMPORT_COMMIT = 5, IMPORT_ABORT = 6,
+            OPEN = 7, REMOVE = 8, SCORE_BATCH = 9;
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final Sync sync;
+    /** Guards {@link #segment}, {@link #lastLsn} and {@link #openImports}; held only to reserve a record's place. */
+    private final ReentrantLock reserveLock = new ReentrantLock();
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableChanged = durableLock.newCondition();
+    private final Map<Long, Long> openImports = new HashMap<>();
+    private final Thread flusher;
+
+    private volatile Segment segment;
+    private long lastLsn;
+    private volatile long durableLsn;
+    private volatile boolean closed;
+
+    private static final class Segment {
+        final Path file;
+        final long firstLsn;
+        final FileChannel channel;
+        final MappedByteBuffer map;
+        /** Writers that reserved a record here and have not written it yet. */
+        final AtomicInteger writing = new AtomicInteger();
+
+        Segment(Path file, long firstLsn, FileChannel channel, MappedByteBuffer map) {
+            this.file = file;
+            this.firstLsn = firstLsn;
+            this.channel = channel;
+            this.map = map;
+        }
+    }
+
+    /**
+     * Opens the journal in {@code dir}, replaying every intact record with an LSN of at least {@code fromLsn} into
+     * {@code sink}, and positions the writer after the last intact record.
+     */
+    public Journal(Path dir, long segmentBytes, Sync sync, long fromLsn, Consumer<Op> sink) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+        Files.createDirectories(dir);
+        List<Path> files = segments();
+        for (int i = 0; i < files.size(); i++) {
+            Segment s = open(files.get(i), 0);
+            boolean last = i == files.size() - 1;
+            int end = replay(s, fromLsn, sink);
+            if (last && end % ALIGN == 0) {
+                segment = s;
+                segment.map.position(end);
+                clearTail(s, end);
+            } else {
+                s.channel.close();
+            }
+        }
+        if (segment == null) segment = create(Math.max(lastLsn, fromLsn - 1) + 1, 0);
+        lastLsn = Math.max(lastLsn, segment.firstLsn - 1);
+        durableLsn = lastLsn;
+        Segment first = segment;
+        int from = first.map.position();
+        long lsn = lastLsn;
+        flusher = Thread.ofPlatform().daemon().name("journal-flusher").start(() -> flushLoop(first, from, lsn));
+    }
+
+    /** The LSN of the most recent record. */
+    public long lastLsn() {
+        reserveLock.lock();
+        try { return lastLsn; } finally { reserveLock.unlock(); }
+    }
+
+    /**
+     * The first LSN a snapshot taken now must replay from: the next record, or the start of the oldest import that has
+     * not finished yet, since its staged rows are not part of any snapshot.
+     */
+    public long replayStart() {
+        reserveLock.lock();
+        try {
+            long from = lastLsn + 1;
+            for (long begin : openImports.values()) from = Math.min(from, begin);
+            return from;
+        } finally {
+            reserveLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the change, then records it. Every record up to {@link #lastLsn()} is therefore already applied, so a
+     * snapshot taken after reading {@link #replayStart()} contains it.
+     */
+    @Override
+    public <T> Recorded<T> record(Op op, Supplier<T> apply) {
+        if (closed) throw new IllegalStateException("Journal is closed");
+        ByteBuffer rec = encode(op);
+        int size = rec.remaining();
+        T result = apply.get();
+        Segment s;
+        int pos;
+        long lsn;
+        reserveLock.lock();
+        try {
+            if (closed) throw new IllegalStateException("Journal is closed");
+            lsn = lastLsn + 1;
+            if (segment.map.remaining() < size + 4) roll(lsn, size + 4);
+            s = segment;
+            pos = s.map.position();
+            s.map.position(pos + size);
+            s.writing.incrementAndGet();
+            lastLsn = lsn;
+            track(op, lsn);
+        } finally {
+            reserveLock.unlock();
+        }
+        seal(rec, lsn);
+        s.map.put(pos + 4, rec, 4, size - 4);
+        LENGTH.setRelease(s.map, pos, size - 8);
+        s.writing.decrementAndGet();
+        return new Recorded<>(result, lsn);
+    }
+
+    /** Deletes segments that only hold records before {@code lsn}. */
+    public void truncateBefore(long lsn) throws IOException {
+        List<Path> files = segments();
+        for (int i = 0; i + 1 < files.size(); i++) {
+            if (firstLsn(files.get(i + 1)) > lsn) break;
+            if (files.get(i).equals(currentFile())) break;
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reserveLock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            awaitWritten(segment);
+        } finally {
+            reserveLock.unlock();
+        }
+        LockSupport.unpark(flusher);
+        try { flusher.join(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        segment.map.force();
+        segment.channel.close();
+        durableLock.lock();
+        try {
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private Path currentFile() {
+        reserveLock.lock();
+        try { return segment.file; } finally { reserveLock.unlock(); }
+    }
+
+    private void track(Op op, long lsn) {
+        switch (op) {
+            case ImportBegin b -> openImports.put(b.id(), lsn);
+            case ImportCommit c -> openImports.remove(c.id());
+            case ImportAbort a -> openImports.remove(a.id());
+            default -> {}
+        }
+    }
+
+    /** Waits until every record reserved in {@code s} is written; called with the reserve lock held. */
+    private static void awaitWritten(Segment s) {
+        for (int spins = 0; s.writing.get() > 0; spins++) {
+            if (spins < 64) Thread.onSpinWait();
+            else Thread.yield();
+        }
+    }
+
+    /** With {@link Sync#GROUP}, waits for the flush that covers the record; with {@link Sync#ASYNC}, returns at once. */
+    @Override
+    public void awaitDurable(long lsn) {
+        if (sync != Sync.GROUP || durableLsn >= lsn) return;
+        LockSupport.unpark(flusher);
+        durableLock.lock();
+        try {
+            while (durableLsn < lsn && !closed) durableChanged.awaitUninterruptibly();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the records written in {@code s} from {@code pos} on, whose first is {@code lsn + 1}, and moves on to the
+     * next segment once {@link #roll} sealed this one.
+     */
+    private void flushLoop(Segment s, int pos, long lsn) {
+        while (true) {
+            Segment current = segment;
+            MappedByteBuffer map = s.map;
+            int from = pos;
+            for (int len; pos + 4 <= map.limit() && (len = (int) LENGTH.getAcquire(map, pos)) > 0; lsn++) pos += 4 + len + 4;
+            if (pos > from) map.force(from, pos - from);
+            if (lsn > durableLsn) {
+                durableLock.lock();
+                try {
+                    durableLsn = lsn;
+                    durableChanged.signalAll();
+                } finally {
+                    durableLock.unlock();
+                }
+            }
+            if (current != s) {
+                s = current;
+                pos = HEADER;
+                continue;
+            }
+            if (closed) return;
+            if (pos == from) LockSupport.parkNanos(this, sync == Sync.GROUP ? Long.MAX_VALUE : ASYNC_INTERVAL_NANOS);
+            else if (sync == Sync.ASYNC) LockSupport.parkNanos(this, ASYNC_INTERVAL_NANOS);
+        }
+    }
+
+    /**
+     * Seals the current segment once every record in it is written and starts a new one; called with the reserve
+     * lock held. The flusher only moves on to the new segment after this forced the old one.
+     */
+    private void roll(long firstLsn, int need) {
+        try {
+            awaitWritten(segment);
+            segment.map.force();
+            segment.channel.close();
+            segment = create(firstLsn, need);
+        } catch (IOException e) {
+            throw new JournalException("Cannot start journal segment at " + firstLsn, e);
+        }
+    }
+
+    private Segment create(long firstLsn, int need) throws IOException {
+        Path file = dir.resolve(String.format("journal-%020d.log", firstLsn));
+        Segment s = open(file, Math.max(segmentBytes, HEADER + need));
+        s.map.putInt(MAGIC).putInt(VERSION);
+        return s;
+    }
+
+    private Segment open(Path file, long size) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long len = size > 0 ? size : ch.size();
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, len);
+            return new Segment(file, firstLsn(file), ch, map);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Zeroes whatever follows the last intact record of the segment being continued: records written concurrently may
+     * have reached it after one that was torn, and must not reappear behind the records written from now on.
+     */
+    private static void clearTail(Segment s, int from) {
+        MappedByteBuffer map = s.map;
+        boolean dirty = false;
+        int i = from;
+        for (; i + 8 <= map.limit(); i += 8) {
+            if (map.getLong(i) != 0) {
+                map.putLong(i, 0);
+                dirty = true;
+            }
+        }
+        for (; i < map.limit(); i++) {
+            if (map.get(i) != 0) {
+                map.put(i, (byte) 0);
+                dirty = true;
+            }
+        }
+        if (dirty) map.force();
+    }
+
+    /** Replays one segment and returns the position after its last intact record. */
+    private int replay(Segment s, long fromLsn, Consumer<Op> sink) {
+        MappedByteBuffer map = s.map;
+        if (map.limit() < HEADER || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new JournalException("Not a journal segment: " + s.file, null);
+        }
+        int pos = HEADER;
+        CRC32C crc = new CRC32C();
+        while (pos + RECORD_OVERHEAD <= map.limit()) {
+            int len = map.getInt(pos);
+            if (len <= 0 || pos + 4 + len + 4 > map.limit()) break;
+            crc.reset();
+            crc.update(map.slice(pos + 4, len));
+            if ((int) crc.getValue() != map.getInt(pos + 4 + len)) break;
+            long lsn = map.getLong(pos + 4);
+            if (lastLsn != 0 && lsn != lastLsn + 1) break;
+            if (lsn >= fromLsn) {
+                try {
+                    sink.accept(decode(map.slice(pos + 12, len - 8)));
+                } catch (BufferUnderflowException e) {
+                    throw new JournalException("Corrupt record " + lsn + " in " + s.file, e);
+                }
+            }
+            lastLsn = lsn;
+            pos += 4 + len + 4;
+        }
+        return pos;
+    }
+
+    /** Encodes the record with its LSN left for {@link #seal}. */
+    private static ByteBuffer encode(Op op) {
+        ByteBuffer b = ByteBuffer.allocate(256);
+        b.position(12);
+        b = ensure(b, 1 + sizeOf(op.competition()));
+        b.put(typeOf(op));
+        putString(b, op.competition());
+        switch (op) {
+            case Open o -> { b = ensure(b, 5); b.put((byte) o.mode().ordinal()).putInt(o.capacity()); }
+            case Remove r -> {}
+            case Add a -> { b = ensure(b, sizeOf(a.name()) + 4); putString(b, a.name()); b.putInt(a.limit()); }
+            case Score sc -> {
+                b = ensure(b, sizeOf(sc.name()) + sizeOf(sc.event()) + 1 + 8);
+                putString(b, sc.name());
+                putString(b, sc.event());
+                b.put((byte) sc.mode().ordinal()).putDouble(sc.value());
+            }
+            case ScoreBatch sb -> {
+                int size = 1 + 4 + sb.names().length * 8;
+                for (int i = 0; i < sb.names().length; i++) size += sizeOf(sb.names()[i]) + sizeOf(sb.events()[i]);
+                b = ensure(b, size);
+                b.put((byte) sb.mode().ordinal()).putInt(sb.names().length);
+                for (int i = 0; i < sb.names().length; i++) {
+                    putString(b, sb.names()[i]);
+                    putString(b, sb.events()[i]);
+                    b.putDouble(sb.values()[i]);
+                }
+            }
+            case ImportBegin ib -> {
+                int size = 8 + 1 + 4;
+                for (String e : ib.events()) size += sizeOf(e);
+                b = ensure(b, size);
+                b.putLong(ib.id()).put((byte) ib.mode().ordinal()).putInt(ib.events().length);
+                for (String e : ib.events()) putString(b, e);
+            }
+            case ImportRows r -> {
+                int width = r.n() == 0 ? 0 : r.values().length / r.names().length;
+                int size = 8 + 4 + 4 + r.n() * width * 8;
+                for (int i = 0; i < r.n(); i++) size += sizeOf(r.names()[i]);
+                b = ensure(b, size);
+                b.putLong(r.id()).putInt(r.n()).putInt(width);
+                for (int i = 0; i < r.n(); i++) {
+                    putString(b, r.names()[i]);
+                    for (int j = 0; j < width; j++) b.putDouble(r.values()[i * width + j]);
+                }
+            }
+            case ImportCommit c -> { b = ensure(b, 8); b.putLong(c.id()); }
+            case ImportAbort a -> { b = ensure(b, 8); b.putLong(a.id()); }
+        }
+        b = ensure(b, ALIGN - 1 + 4);
+        while (b.position() % ALIGN != 0) b.put((byte) 0);
+        int end = b.position();
+        b.putInt(0, end - 4);
+        b.position(end + 4);
+        return b.flip();
+    }
+
+    /** Fills in the LSN and the checksum over it and the payload. */
+    private static void seal(ByteBuffer rec, long lsn) {
+        int end = rec.limit() - 4;
+        rec.putLong(4, lsn);
+        CRC32C crc = new CRC32C();
+        crc.update(rec.slice(4, end - 4));
+        rec.putInt(end, (int) crc.getValue());
+    }
+
+    private static byte typeOf(Op op) {
+        return switch (op) {
+            case Open o -> OPEN;
+            case Remove r -> REMOVE;
+            case Add a -> ADD;
+            case Score s -> SCORE;
+            case ScoreBatch sb -> SCORE_BATCH;
+            case ImportBegin ib -> IMPORT_BEGIN;
+            case ImportRows r -> IMPORT_ROWS;
+            case ImportCommit c -> IMPORT_COMMIT;
+            case ImportAbort a -> IMPORT_ABORT;
+        };
+    }
+
+    private static Op decode(ByteBuffer b) {
+        byte type = b.get();
+        String comp = getString(b);
+        return switch (type) {
+            case OPEN -> new Open(comp, ScoringService.Mode.values()[b.get()], b.getInt());
+            case REMOVE -> new Remove(comp);
+            case ADD -> new Add(comp, getString(b), b.getInt());
+            case SCORE -> new Score(comp, getString(b), getString(b), ScoringService.Mode.values()[b.get()], b.getDouble());
+            case SCORE_BATCH -> {
+                ScoringService.Mode mode = ScoringService.Mode.values()[b.get()];
+                int n = b.getInt();
+                String[] names = new String[n], events = new String[n];
+                double[] values = new double[n];
+                for (int i = 0; i < n; i++) {
+                    names[i] = getString(b);
+                    events[i] = getString(b);
+                    values[i] = b.getDouble();
+                }
+                yield new ScoreBatch(comp, names, events, mode, values);
+            }
+            case IMPORT_BEGIN -> {
+                long id = b.getLong();
+                ScoringService.Mode mode = ScoringService.Mode.values()[b.get()];
+                String[] events = new String[b.getInt()];
+                for (int i = 0; i < events.length; i++) events[i] = getString(b);
+                yield new ImportBegin(comp, id, mode, events);
+            }
+            case IMPORT_ROWS -> {
+                long id = b.getLong();
+                int n = b.getInt(), width = b.getInt();
+                String[] names = new String[n];
+                double[] values = new double[n * width];
+                for (int i = 0; i < n; i++) {
+                    names[i] = getString(b);
+                    for (int j = 0; j < width; j++) values[i * width + j] = b.getDouble();
+                }
+                yield new ImportRows(comp, id, names, values, n);
+            }
+            case IMPORT_COMMIT -> new ImportCommit(comp, b.getLong());
+            case IMPORT_ABORT -> new ImportAbort(comp, b.getLong());
+            default -> throw new JournalException("Unknown record type " + type, null);
+        };
+    }
+
+    /** Grows the record buffer so that {@code more} bytes fit after the current position. */
+    private static ByteBuffer ensure(ByteBuffer b, int more) {
+        if (b.remaining() >= more) return b;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(b.capacity() * 2, b.position() + more));
+        bigger.put(b.flip());
+        return bigger;
+    }
+
+    private static int sizeOf(String s) { return 4 + s.length() * 3; }
+
+    private static void putString(ByteBuffer b, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        b.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getInt()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().matches("journal-\\d{20}\\.log")).sorted().toList();
+        }
+    }
+
+    private static long firstLsn(Path file) {
+        String n = file.getFileName().toString();
+        return Long.parseLong(n.substring("journal-".length(), n.length() - ".log".length()));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.decathlon.journal;
+
+import com.example.decathlon.core.CompetitionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "decathlon.journal.enabled", havingValue = "true")
+public class JournalConfiguration {
+    @Bean(destroyMethod = "close")
+    public JournalManager journalManager(CompetitionService comp,
+                                         @Value("${decathlon.journal.dir:data/journal}") Path dir,
+                                         @Value("${decathlon.journal.segment-bytes:67108864}") long segmentBytes,
+                                         @Value("${decathlon.journal.sync:GROUP}") Journal.Sync sync,
+                                         @Value("${decathlon.journal.snapshot-interval:5m}") Duration snapshotInterval)
+            throws IOException {
+        return new JournalManager(comp, dir, segmentBytes, sync, snapshotInterval);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.decathlon.journal;
+
+/** The journal or a snapshot could not be written or read back. */
+public class JournalException extends RuntimeException {
+    public JournalException(String message, Throwable cause) { super(message, cause); }
+}
@@ -0,0 +1,151 @@
+package com.example.decathlon.journal;
+
+import com.example.decathlon.core.ChangeLog;
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ResultStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Makes a {@link CompetitionService} durable: on start it loads the latest snapshot and replays the journal tail,
+ * then routes every change through the journal and writes a compacted snapshot at a fixed interval. With a
+ * persistent {@link ResultStorage} the storage's own checkpoint takes the place of the snapshot: the competitions are
+ * already loaded, so only the records after its LSN are replayed.
+ */
+public class JournalManager implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(JournalManager.class);
+
+    private final CompetitionService comp;
+    private final Path dir;
+    private final Journal journal;
+    private final ScheduledExecutorService checkpoints;
+    /** Keeps a scheduled checkpoint and one on demand or on close from writing the same files at once. */
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final long recoveryMillis;
+    private final long replayed;
+
+    public JournalManager(CompetitionService comp, Path dir, long segmentBytes, Journal.Sync sync,
+                          Duration snapshotInterval) throws IOException {
+        this.comp = comp;
+        this.dir = dir;
+        long started = System.nanoTime();
+        Map<Long, Competition.Import> imports = new HashMap<>();
+        long[] count = new long[1];
+        long from;
+        comp.beginRecovery();
+        try {
+            ResultStorage storage = comp.storage();
+            from = storage.persistent() && storage.checkpointLsn() > 0 ? storage.checkpointLsn() : Snapshots.load(dir, comp);
+            this.journal = new Journal(dir, segmentBytes, sync, from, op -> {
+                count[0]++;
+                replay(imports, op);
+            });
+            imports.values().forEach(Competition.Import::close);
+        } finally {
+            comp.endRecovery();
+        }
+        this.replayed = count[0];
+        this.recoveryMillis = (System.nanoTime() - started) / 1_000_000;
+        comp.setChangeLog(journal);
+        log.info("Recovered {} journal records after snapshot LSN {} in {} ms", replayed, from, recoveryMillis);
+
+        checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        long every = snapshotInterval.toMillis();
+        if (every > 0) checkpoints.scheduleWithFixedDelay(this::checkpointQuietly, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    public long recoveryMillis() { return recoveryMillis; }
+
+    public long replayedRecords() { return replayed; }
+
+    /**
+     * Writes a snapshot, or checkpoints a persistent storage, and drops the journal segments it covers. The snapshot
+     * is taken while writes continue; every record from {@link Journal#replayStart()} on is replayed over it, and
+     * replaying a change that the snapshot already contains leaves the same state.
+     */
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            long from = journal.replayStart();
+            if (comp.storage().persistent()) {
+                comp.checkpoint(from);
+                Snapshots.deleteAll(dir);
+            } else {
+                Snapshots.write(dir, from, comp);
+            }
+            journal.truncateBefore(from);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    /** Lets a running scheduled checkpoint finish, uninterrupted, then takes a final one. */
+    @Override
+    public void close() throws IOException {
+        checkpoints.shutdown();
+        try {
+            if (!checkpoints.awaitTermination(1, TimeUnit.MINUTES)) log.warn("Scheduled snapshot still running at close");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            checkpoint();
+        } finally {
+            comp.setChangeLog(ChangeLog.NONE);
+            journal.close();
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot failed; the journal keeps growing until the next one succeeds", e);
+        }
+    }
+
+    /** Applies a replayed record; records for a competition that was removed later in the journal are dropped. */
+    private void replay(Map<Long, Competition.Import> imports, ChangeLog.Op op) {
+        if (op instanceof ChangeLog.Open o) {
+            comp.open(o.competition(), o.mode(), o.capacity());
+            return;
+        }
+        Competition c = comp.get(op.competition());
+        if (c == null) return;
+        switch (op) {
+            case ChangeLog.Open o -> {}
+            case ChangeLog.Remove r -> comp.remove(r.competition());
+            case ChangeLog.Add a -> c.addCompetitor(a.name(), a.limit());
+            case ChangeLog.Score s -> c.score(s.name(), s.event(), s.value(), s.mode().name());
+            case ChangeLog.ScoreBatch sb -> c.scoreBatch(sb.names(), sb.events(), sb.values(), sb.mode().name());
+            case ChangeLog.ImportBegin b -> imports.put(b.id(), c.beginImport(b.mode(), b.events()));
+            case ChangeLog.ImportRows r -> {
+                Competition.Import imp = imports.get(r.id());
+                if (imp != null) imp.add(r.names(), r.values(), r.n());
+            }
+            case ChangeLog.ImportCommit ic -> {
+                Competition.Import imp = imports.remove(ic.id());
+                if (imp != null) imp.commit();
+            }
+            case ChangeLog.ImportAbort ia -> {
+                Competition.Import imp = imports.remove(ia.id());
+                if (imp != null) imp.close();
+            }
+        }
+    }
+}
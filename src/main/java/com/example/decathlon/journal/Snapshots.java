@@ -0,0 +1,127 @@
+package com.example.decathlon.journal;
+
+import com.example.decathlon.core.AthleteStore;
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compacted images of the competition state. A snapshot records the journal LSN to replay from; it is written to a
+ * temporary file and renamed into place, so a crash mid-write leaves the previous snapshot intact.
+ */
+final class Snapshots {
+    private static final int MAGIC = 0x44534e50; // "DSNP"
+    private static final int VERSION = 3;
+    private static final int BATCH = 1024;
+
+    private Snapshots() {}
+
+    /** Writes the current state and deletes older snapshots; returns the new file. */
+    static Path write(Path dir, long fromLsn, CompetitionService comp) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(String.format("snapshot-%020d.bin", fromLsn));
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        ScoringService.Event[] events = ScoringService.Event.values();
+        CRC32C crc = new CRC32C();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fromLsn);
+            out.writeInt(events.length);
+            for (var e : events) out.writeUTF(e.id());
+            for (Competition c : comp.competitions()) {
+                out.writeBoolean(true);
+                out.writeUTF(c.id());
+                out.writeByte(c.mode().ordinal());
+                out.writeInt(c.capacity());
+                for (AthleteStore.Athlete a : c.athletes()) {
+                    out.writeBoolean(true);
+                    out.writeUTF(a.name());
+                    for (var e : events) out.writeDouble(a.result(e));
+                }
+                out.writeBoolean(false);
+            }
+            out.writeBoolean(false);
+            out.flush();
+            out.writeInt((int) crc.getValue());
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) { ch.force(true); }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Path old : list(dir)) if (!old.equals(file)) Files.deleteIfExists(old);
+        return file;
+    }
+
+    /**
+     * Loads the newest snapshot into {@code comp}, one bulk import per competition; nothing is committed unless the
+     * whole file checks out.
+     *
+     * @return the LSN to replay the journal from, or 1 if there is no snapshot
+     */
+    static long load(Path dir, CompetitionService comp) throws IOException {
+        if (!Files.isDirectory(dir)) return 1;
+        List<Path> files = list(dir);
+        if (files.isEmpty()) return 1;
+        Path file = files.get(files.size() - 1);
+        CRC32C crc = new CRC32C();
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new JournalException("Not a snapshot: " + file, null);
+            long fromLsn = in.readLong();
+            String[] events = new String[in.readInt()];
+            for (int i = 0; i < events.length; i++) events[i] = in.readUTF();
+            String[] names = new String[BATCH];
+            double[] values = new double[BATCH * events.length];
+            List<Competition.Import> imports = new ArrayList<>();
+            try {
+                while (in.readBoolean()) {
+                    String id = in.readUTF();
+                    ScoringService.Mode mode = ScoringService.Mode.values()[in.readByte()];
+                    int capacity = in.readInt();
+                    Competition.Import imp = comp.open(id, mode, capacity).beginImport(mode, events);
+                    imports.add(imp);
+                    int n = 0;
+                    while (in.readBoolean()) {
+                        names[n] = in.readUTF();
+                        for (int j = 0; j < events.length; j++) values[n * events.length + j] = in.readDouble();
+                        if (++n == BATCH) {
+                            imp.add(names, values, n);
+                            n = 0;
+                        }
+                    }
+                    imp.add(names, values, n);
+                }
+                int expected = (int) crc.getValue();
+                if (new DataInputStream(raw).readInt() != expected) throw new JournalException("Corrupt snapshot: " + file, null);
+                for (Competition.Import imp : imports) imp.commit();
+            } finally {
+                for (Competition.Import imp : imports) imp.close();
+            }
+            return fromLsn;
+        } catch (EOFException e) {
+            throw new JournalException("Truncated snapshot: " + file, e);
+        }
+    }
+
+    /** Deletes every snapshot, once a persistent storage's checkpoint has taken their place. */
+    static void deleteAll(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        for (Path old : list(dir)) Files.deleteIfExists(old);
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().matches("snapshot-\\d{20}\\.bin")).sorted().toList();
+        }
+    }
+}
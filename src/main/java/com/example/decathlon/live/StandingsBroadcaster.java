@@ -0,0 +1,386 @@
+package com.example.decathlon.live;
+
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.StandingsListener;
+import com.example.decathlon.dto.RankedStandingDto;
+import com.example.decathlon.dto.StandingDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes standings to live scoreboards over server-sent events. Changes are collected per competition and sent once
+ * per batching window as one {@code delta} frame listing each changed athlete's event, points, total and rank, so a
+ * burst of results costs one frame; only a reset (an import or a mode switch) sends the full standings again. Frames
+ * are serialized once and queued to every client; a small pool of sender threads drains the queues, so no thread is
+ * held per connection. With virtual threads enabled each drain runs on its own virtual thread, so a slow client
+ * blocks nobody else. A client whose queue overflows loses its pending
+ * deltas and is sent a fresh {@code snapshot} frame instead.
+ *
+ * <p>Sends are blocking servlet writes, so a client that stops reading holds its sender thread. A send that takes
+ * longer than the send timeout marks the client stale, dropping its queued deltas, and adds a sender thread for as long
+ * as the write stays blocked, so the other clients keep their senders; a client blocked ten times that long is closed.
+ */
+@Component
+public class StandingsBroadcaster implements StandingsListener {
+    /** Pending changes per competition above which one snapshot frame is cheaper than the deltas. */
+    private static final int MAX_PENDING = 4096;
+
+    private record Frame(String name, String data) {}
+    private record Change(String athlete, String event) {}
+    private record Cached(List<StandingDto> rows, Frame frame) {}
+    public record Row(int rank, String name, Map<String, Integer> scores, int total) {}
+    public record Delta(String athlete, String event, Integer points, int total, int rank) {}
+    public record Snapshot(String competition, String mode, List<Row> rows) {}
+    public record Deltas(String competition, List<Delta> changes) {}
+
+    /** Changes to one competition not yet sent; kept while the competition has clients. */
+    private static final class Pending {
+        final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        volatile boolean reset;
+    }
+
+    private final class Client {
+        final String competition;
+        final SseEmitter emitter;
+        final ConcurrentLinkedQueue<Frame> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        /** Set when a send blocked past the timeout and a sender thread was added in its place. */
+        final AtomicBoolean replaced = new AtomicBoolean();
+        /** When the send in progress started, or 0 between sends. */
+        volatile long sendingSince;
+        volatile boolean stale = true;
+        volatile boolean closed;
+        volatile boolean abandoned;
+
+        Client(String competition, SseEmitter emitter) {
+            this.competition = competition;
+            this.emitter = emitter;
+        }
+
+        void offer(Frame f) {
+            if (closed) return;
+            if (queued.incrementAndGet() > queueCapacity) {
+                stale = true;
+                queue.clear();
+                queued.set(0);
+            } else {
+                queue.add(f);
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) senders.execute(this::drain);
+        }
+
+        void drain() {
+            try {
+                for (;;) {
+                    Frame f;
+                    if (stale) {
+                        stale = false;
+                        queue.clear();
+                        queued.set(0);
+                        Competition c = comp.get(competition);
+                        if (c == null) {
+                            close();
+                            return;
+                        }
+                        f = snapshotFrame(c);
+                    } else {
+                        f = queue.poll();
+                        if (f == null) break;
+                        queued.decrementAndGet();
+                    }
+                    send(f);
+                    if (abandoned) {
+                        emitter.complete();
+                        return;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if ((stale || !queue.isEmpty()) && !closed) schedule();
+        }
+
+        private void send(Frame f) throws IOException {
+            sendingSince = System.nanoTime();
+            try {
+                emitter.send(SseEmitter.event().name(f.name()).data(f.data()));
+            } finally {
+                sendingSince = 0;
+                if (replaced.compareAndSet(true, false)) resizeSenders(-1);
+            }
+        }
+
+        /** Marks the client stale and adds a sender thread in place of the send blocked since {@code since}. */
+        void blocked(long since) {
+            if (replaced.get()) return;
+            resizeSenders(1);
+            replaced.set(true);
+            stale = true;
+            queue.clear();
+            queued.set(0);
+            // The send may have returned before it saw the flag; then the thread is not needed.
+            if (sendingSince != since && replaced.compareAndSet(true, false)) resizeSenders(-1);
+        }
+
+        /**
+         * Drops a client whose send stays blocked. Completing the emitter waits for that send, so the sender does it
+         * once the write returns or fails.
+         */
+        void abandon() {
+            if (closed) return;
+            abandoned = true;
+            closed = true;
+            remove(this);
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            remove(this);
+            emitter.complete();
+        }
+    }
+
+    private final CompetitionService comp;
+    private final ObjectMapper json;
+    private final int queueCapacity;
+    private final long heartbeatNanos;
+    private final long sendTimeoutNanos;
+    private final ConcurrentHashMap<String, Set<Client>> clients = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Cached> snapshots = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService senders;
+    /** The platform sender pool, resized around blocked sends; null with virtual threads. */
+    private final ThreadPoolExecutor pool;
+    private long lastHeartbeat = System.nanoTime();
+
+    public StandingsBroadcaster(CompetitionService comp, ObjectMapper json,
+                                @Value("${decathlon.live.window:50ms}") Duration window,
+                                @Value("${decathlon.live.queue-capacity:64}") int queueCapacity,
+                                @Value("${decathlon.live.senders:2}") int senders,
+                                @Value("${decathlon.live.heartbeat:15s}") Duration heartbeat,
+                                @Value("${decathlon.live.send-timeout:2s}") Duration sendTimeout,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.comp = comp;
+        this.json = json;
+        this.queueCapacity = queueCapacity;
+        this.heartbeatNanos = heartbeat.toNanos();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(daemon("standings-broadcaster"));
+        this.pool = virtualThreads ? null : new ThreadPoolExecutor(senders, senders, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemon("standings-sender"));
+        this.senders = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("standings-sender-", 0).factory())
+                : pool;
+        long every = Math.max(1, window.toMillis());
+        ticker.scheduleWithFixedDelay(this::tickQuietly, every, every, TimeUnit.MILLISECONDS);
+        comp.setStandingsListener(this);
+    }
+
+    /** Registers a scoreboard for the competition; it is sent a snapshot first and deltas after that. */
+    public SseEmitter subscribe(Competition c) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Client client = new Client(c.id(), emitter);
+        emitter.onCompletion(() -> { client.closed = true; remove(client); });
+        emitter.onTimeout(client::close);
+        emitter.onError(e -> client.close());
+        clients.compute(c.id(), (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(client);
+            return set;
+        });
+        client.schedule();
+        return emitter;
+    }
+
+    /** Number of connected scoreboards. */
+    public int clients() {
+        int n = 0;
+        for (Set<Client> set : clients.values()) n += set.size();
+        return n;
+    }
+
+    @Override
+    public void changed(Competition c, String athlete, String event) {
+        if (!clients.containsKey(c.id())) return;
+        Pending p = pending.computeIfAbsent(c.id(), k -> new Pending());
+        if (p.reset) return;
+        if (p.size.incrementAndGet() > MAX_PENDING) p.reset = true;
+        else p.changes.add(new Change(athlete, event));
+    }
+
+    @Override
+    public void reset(Competition c) {
+        if (!clients.containsKey(c.id())) return;
+        pending.computeIfAbsent(c.id(), k -> new Pending()).reset = true;
+    }
+
+    @PreDestroy
+    public void close() {
+        comp.setStandingsListener(StandingsListener.NONE);
+        ticker.shutdownNow();
+        for (Set<Client> set : clients.values()) for (Client client : set) client.close();
+        senders.shutdown();
+    }
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next tick starts from the current standings.
+        }
+    }
+
+    /** Turns the changes collected during the window into one frame per competition. */
+    private void tick() {
+        for (Map.Entry<String, Pending> e : pending.entrySet()) {
+            String id = e.getKey();
+            Pending p = e.getValue();
+            if (!p.reset && p.size.get() == 0) continue;
+            Set<Client> subscribers = clients.get(id);
+            Competition c = comp.get(id);
+            if (subscribers == null || c == null) {
+                pending.remove(id, p);
+                if (subscribers != null) for (Client client : subscribers) client.close();
+                continue;
+            }
+            if (p.reset) {
+                p.reset = false;
+                p.size.set(0);
+                p.changes.clear();
+                for (Client client : subscribers) {
+                    client.stale = true;
+                    client.schedule();
+                }
+                continue;
+            }
+            List<Change> changes = new ArrayList<>();
+            for (Change ch; (ch = p.changes.poll()) != null; ) {
+                changes.add(ch);
+                p.size.decrementAndGet();
+            }
+            Frame f = deltaFrame(c, changes);
+            for (Client client : subscribers) client.offer(f);
+        }
+        long now = System.nanoTime();
+        for (Set<Client> set : clients.values()) {
+            for (Client client : set) {
+                long since = client.sendingSince;
+                if (since == 0 || now - since <= sendTimeoutNanos) continue;
+                client.blocked(since);
+                if (now - since > 10 * sendTimeoutNanos) client.abandon();
+            }
+        }
+        if (now - lastHeartbeat >= heartbeatNanos) {
+            lastHeartbeat = now;
+            Frame ping = new Frame("heartbeat", "{}");
+            for (Set<Client> set : clients.values()) for (Client client : set) client.offer(ping);
+        }
+    }
+
+    /**
+     * The changed athletes' rows in rank order. Each row and rank is looked up on its own in O(log n), so a tick
+     * costs the number of changes, not the size of the field.
+     */
+    private Frame deltaFrame(Competition c, Collection<Change> changes) {
+        Map<String, Set<String>> byAthlete = new HashMap<>();
+        for (Change ch : changes) {
+            Set<String> events = byAthlete.computeIfAbsent(ch.athlete(), k -> new LinkedHashSet<>());
+            if (ch.event() != null) events.add(ch.event());
+        }
+        List<RankedStandingDto> rows = new ArrayList<>(byAthlete.size());
+        for (String athlete : byAthlete.keySet()) {
+            RankedStandingDto r = c.rank(athlete);
+            if (r != null) rows.add(r);
+        }
+        rows.sort(Comparator.comparingInt(RankedStandingDto::rank));
+        List<Delta> deltas = new ArrayList<>(rows.size());
+        for (RankedStandingDto r : rows) {
+            Set<String> events = byAthlete.get(r.name());
+            if (events.isEmpty()) deltas.add(new Delta(r.name(), null, null, r.total(), r.rank()));
+            for (String e : events) deltas.add(new Delta(r.name(), e, r.scores().get(e), r.total(), r.rank()));
+        }
+        return frame("delta", new Deltas(c.id(), deltas));
+    }
+
+    /** The full standings with ranks; serialized once per standings version and shared by every client. */
+    private Frame snapshotFrame(Competition c) {
+        List<StandingDto> rows = c.standings();
+        Cached cached = snapshots.get(c.id());
+        if (cached != null && cached.rows() == rows) return cached.frame();
+        List<Row> ranked = new ArrayList<>(rows.size());
+        int rank = 0, prevTotal = Integer.MIN_VALUE;
+        for (int i = 0; i < rows.size(); i++) {
+            StandingDto r = rows.get(i);
+            if (r.total() != prevTotal) {
+                rank = i + 1;
+                prevTotal = r.total();
+            }
+            ranked.add(new Row(rank, r.name(), r.scores(), r.total()));
+        }
+        Frame f = frame("snapshot", new Snapshot(c.id(), c.mode().name(), ranked));
+        snapshots.put(c.id(), new Cached(rows, f));
+        return f;
+    }
+
+    private Frame frame(String name, Object body) {
+        try {
+            return new Frame(name, json.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Grows or shrinks the platform sender pool by {@code delta} threads. */
+    private synchronized void resizeSenders(int delta) {
+        if (pool == null) return;
+        int n = pool.getCorePoolSize() + delta;
+        if (delta > 0) {
+            pool.setMaximumPoolSize(n);
+            pool.setCorePoolSize(n);
+        } else {
+            pool.setCorePoolSize(n);
+            pool.setMaximumPoolSize(n);
+        }
+    }
+
+    private void remove(Client client) {
+        clients.computeIfPresent(client.competition, (k, set) -> {
+            set.remove(client);
+            if (!set.isEmpty()) return set;
+            pending.remove(k);
+            snapshots.remove(k);
+            return null;
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.decathlon.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Monotonic count on a {@link LongAdder}; a disabled counter drops everything. */
+public final class Counter {
+    static final Counter OFF = new Counter(false);
+
+    private final boolean on;
+    private final LongAdder count = new LongAdder();
+
+    Counter() { this(true); }
+
+    private Counter(boolean on) { this.on = on; }
+
+    public void increment() {
+        if (on) count.increment();
+    }
+
+    public void add(long n) {
+        if (on) count.add(n);
+    }
+
+    long get() { return count.sum(); }
+}
@@ -0,0 +1,136 @@
+package com.example.decathlon.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the service's timers, counters and gauges, written out in the Prometheus text format by
+ * {@link #scrape(Appendable)}. Instruments are created once per name and label values and are then updated without
+ * locks; callers on hot paths look them up once and keep them. {@link #OFF} hands out instruments that record
+ * nothing, so instrumented code needs no checks of its own.
+ */
+public final class Metrics {
+    public static final Metrics OFF = new Metrics(false);
+
+    private enum Type { HISTOGRAM, COUNTER, GAUGE }
+
+    private static final class Family {
+        final Type type;
+        final String help;
+        /** Instruments by their rendered label set, e.g. {@code {op="score"}}. */
+        final ConcurrentHashMap<String, Object> series = new ConcurrentHashMap<>();
+        volatile String label;
+        volatile Supplier<? extends Map<String, ? extends Number>> values;
+
+        Family(Type type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    private final boolean on;
+    private final ConcurrentSkipListMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public Metrics() { this(true); }
+
+    private Metrics(boolean on) { this.on = on; }
+
+    public boolean enabled() { return on; }
+
+    /** The latency histogram {@code name} with these label name/value pairs, created on first use. */
+    public Timer timer(String name, String help, String... labels) {
+        if (!on) return Timer.OFF;
+        return (Timer) family(name, help, Type.HISTOGRAM).series.computeIfAbsent(labels(labels), k -> new Timer());
+    }
+
+    /** The counter {@code name} (which should end in {@code _total}) with these label name/value pairs. */
+    public Counter counter(String name, String help, String... labels) {
+        if (!on) return Counter.OFF;
+        return (Counter) family(name, help, Type.COUNTER).series.computeIfAbsent(labels(labels), k -> new Counter());
+    }
+
+    /**
+     * Registers a gauge read at every scrape: one sample per entry of {@code values}, labelled {@code label} with the
+     * entry's key. Registering the name again replaces the supplier.
+     */
+    public void gauge(String name, String help, String label, Supplier<? extends Map<String, ? extends Number>> values) {
+        if (!on) return;
+        Family f = family(name, help, Type.GAUGE);
+        f.label = label;
+        f.values = values;
+    }
+
+    /** Writes every instrument in the Prometheus text exposition format (version 0.0.4). */
+    public void scrape(Appendable out) throws IOException {
+        for (Map.Entry<String, Family> e : families.entrySet()) {
+            String name = e.getKey();
+            Family f = e.getValue();
+            out.append("# HELP ").append(name).append(' ').append(f.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(f.type.name().toLowerCase()).append('\n');
+            switch (f.type) {
+                case COUNTER -> {
+                    for (var s : f.series.entrySet()) sample(out, name, s.getKey(), ((Counter) s.getValue()).get());
+                }
+                case HISTOGRAM -> {
+                    for (var s : f.series.entrySet()) histogram(out, name, s.getKey(), (Timer) s.getValue());
+                }
+                case GAUGE -> {
+                    var values = f.values;
+                    if (values == null) continue;
+                    for (var s : values.get().entrySet()) {
+                        out.append(name).append(labels(f.label, s.getKey())).append(' ')
+                           .append(String.valueOf(s.getValue().doubleValue())).append('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family f = families.computeIfAbsent(name, k -> new Family(type, help));
+        if (f.type != type) throw new IllegalArgumentException(name + " is already a " + f.type.name().toLowerCase());
+        return f;
+    }
+
+    private static void histogram(Appendable out, String name, String labels, Timer t) throws IOException {
+        long[] counts = t.counts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = i < Timer.BUCKETS ? String.valueOf((1L << (Timer.MIN_SHIFT + i)) / 1e9) : "+Inf";
+            String withLe = labels.isEmpty() ? "{le=\"" + le + "\"}"
+                    : labels.substring(0, labels.length() - 1) + ",le=\"" + le + "\"}";
+            sample(out, name + "_bucket", withLe, cumulative);
+        }
+        out.append(name).append("_sum").append(labels).append(' ').append(String.valueOf(t.sumNanos() / 1e9)).append('\n');
+        sample(out, name + "_count", labels, cumulative);
+    }
+
+    private static void sample(Appendable out, String name, String labels, long value) throws IOException {
+        out.append(name).append(labels).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    private static String labels(String... pairs) {
+        if (pairs.length % 2 != 0) throw new IllegalArgumentException("Labels come in name/value pairs");
+        if (pairs.length == 0) return "";
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(pairs[i]).append("=\"");
+            for (int j = 0; j < pairs[i + 1].length(); j++) {
+                char ch = pairs[i + 1].charAt(j);
+                switch (ch) {
+                    case '\\' -> sb.append("\\\\");
+                    case '"' -> sb.append("\\\"");
+                    case '\n' -> sb.append("\\n");
+                    default -> sb.append(ch);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.append('}').toString();
+    }
+}
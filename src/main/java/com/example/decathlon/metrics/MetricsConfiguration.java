@@ -0,0 +1,59 @@
+package com.example.decathlon.metrics;
+
+import com.example.decathlon.core.CompetitionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires {@link Metrics}: the competitions record into it, every API request is timed by method, route and status, and
+ * {@link MetricsController} serves it. With {@code decathlon.metrics.enabled=false} the bean is {@link Metrics#OFF}
+ * and nothing is recorded.
+ */
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+    private static final String STARTED = MetricsConfiguration.class.getName() + ".started";
+
+    private final Metrics metrics;
+
+    public MetricsConfiguration(@Value("${decathlon.metrics.enabled:true}") boolean enabled) {
+        this.metrics = enabled ? new Metrics() : Metrics.OFF;
+    }
+
+    @Bean
+    public Metrics metrics(CompetitionService comp) {
+        comp.setMetrics(metrics);
+        return metrics;
+    }
+
+    /**
+     * Times requests from the first dispatch to the completion of the last, so streamed and other asynchronous
+     * responses include the time spent writing them.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!metrics.enabled()) return;
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler) {
+                if (req.getAttribute(STARTED) == null) req.setAttribute(STARTED, System.nanoTime());
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest req, HttpServletResponse res, Object handler, Exception ex) {
+                if (!(req.getAttribute(STARTED) instanceof Long started)) return;
+                Object route = req.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                metrics.timer("decathlon_http_request_seconds", "Duration of API requests",
+                        "method", req.getMethod(), "uri", route != null ? route.toString() : "UNKNOWN",
+                        "status", Integer.toString(res.getStatus())).record(System.nanoTime() - started);
+            }
+        }).addPathPatterns("/com/example/decathlon/api/**");
+    }
+}
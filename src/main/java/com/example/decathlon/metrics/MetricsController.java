@@ -0,0 +1,25 @@
+package com.example.decathlon.metrics;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/** Serves {@link Metrics} where Prometheus scrapes by default; 404 while metrics are off. */
+@RestController
+public class MetricsController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Metrics metrics;
+
+    public MetricsController(Metrics metrics) { this.metrics = metrics; }
+
+    @GetMapping("/actuator/prometheus")
+    public ResponseEntity<String> scrape() throws IOException {
+        if (!metrics.enabled()) return ResponseEntity.notFound().build();
+        StringBuilder out = new StringBuilder(16 * 1024);
+        metrics.scrape(out);
+        return ResponseEntity.ok().header("Content-Type", PROMETHEUS_TEXT).body(out.toString());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.decathlon.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram over fixed power-of-two buckets from about 1 us to 17 s. Recording is two {@link LongAdder}
+ * increments, so concurrent callers do not contend; the bucket a duration falls in is found from its leading zeros.
+ * A disabled timer does not even read the clock.
+ */
+public final class Timer {
+    /** Bucket {@code i} holds durations of at most {@code 2^(MIN_SHIFT + i)} ns; the last one holds the rest. */
+    static final int MIN_SHIFT = 10;
+    static final int BUCKETS = 25;
+
+    static final Timer OFF = new Timer(false);
+
+    private final boolean on;
+    private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    Timer() { this(true); }
+
+    private Timer(boolean on) {
+        this.on = on;
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+    }
+
+    /** @return the start time to pass to {@link #stop(long)} */
+    public long start() { return on ? System.nanoTime() : 0; }
+
+    public void stop(long started) {
+        if (on) record(System.nanoTime() - started);
+    }
+
+    public void record(long nanos) {
+        if (!on) return;
+        int i = Math.max(0, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos - 1)) - MIN_SHIFT);
+        counts[Math.min(i, BUCKETS)].increment();
+        sumNanos.add(nanos);
+    }
+
+    /** Observations per bucket; each entry counts only its own bucket. */
+    long[] counts() {
+        long[] c = new long[counts.length];
+        for (int i = 0; i < c.length; i++) c[i] = counts[i].sum();
+        return c;
+    }
+
+    long sumNanos() { return sumNanos.sum(); }
+}
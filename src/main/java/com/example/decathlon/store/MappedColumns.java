@@ -0,0 +1,138 @@
+package com.example.decathlon.store;
+
+import com.example.decathlon.core.AthleteStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.decathlon.core.AthleteStore.CHUNK;
+import static com.example.decathlon.core.AthleteStore.EVENTS;
+
+/**
+ * Result chunks in a memory-mapped file of fixed-width records: chunk {@code c} is the {@link #CHUNK_BYTES} bytes at
+ * {@code c * CHUNK_BYTES}, each result a little-endian double. Values are stored XORed with the bits of NaN, so the
+ * zeros of a freshly extended file read as missing results and new chunks need no filling. The file is mapped
+ * {@value #SEGMENT_CHUNKS} chunks at a time.
+ */
+final class MappedColumns implements AthleteStore.Columns {
+    static final long CHUNK_BYTES = (long) EVENTS * CHUNK * Long.BYTES;
+    static final int SEGMENT_CHUNKS = 64;
+    private static final VarHandle BITS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long MISSING = Double.doubleToRawLongBits(Double.NaN);
+
+    private static final class MappedChunk extends AthleteStore.Chunk {
+        private final ByteBuffer buf;
+
+        MappedChunk(ByteBuffer buf) { this.buf = buf; }
+
+        @Override
+        protected double get(int index) {
+            return Double.longBitsToDouble((long) BITS.getAcquire(buf, index * Long.BYTES) ^ MISSING);
+        }
+
+        @Override
+        protected void set(int index, double value) {
+            BITS.setRelease(buf, index * Long.BYTES, Double.doubleToRawLongBits(value) ^ MISSING);
+        }
+
+        void clear(int slot) {
+            for (int e = 0; e < EVENTS; e++) BITS.setRelease(buf, (e * CHUNK + slot) * Long.BYTES, 0L);
+        }
+    }
+
+    private final MappedStorage storage;
+    final String competition;
+    final long generation;
+    final Path results;
+    final Path names;
+    /** Grows like the heap columns: by copy, under {@link #grow}. */
+    private volatile MappedChunk[] chunks = new MappedChunk[0];
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final ReentrantLock grow = new ReentrantLock();
+    /** Athletes whose names are in the names file, and the file's length; advanced by checkpoints only. */
+    int named;
+    long namesBytes;
+
+    MappedColumns(MappedStorage storage, String competition, long generation, Path results, Path names) {
+        this.storage = storage;
+        this.competition = competition;
+        this.generation = generation;
+        this.results = results;
+        this.names = names;
+    }
+
+    @Override
+    public AthleteStore.Chunk chunk(int c) {
+        MappedChunk[] cs = chunks;
+        if (c < cs.length) return cs[c];
+        grow.lock();
+        try {
+            cs = chunks;
+            if (c < cs.length) return cs[c];
+            MappedChunk[] next = Arrays.copyOf(cs, c + 1);
+            for (int i = cs.length; i < next.length; i++) {
+                MappedByteBuffer seg = segment(i / SEGMENT_CHUNKS);
+                next[i] = new MappedChunk(seg.slice((int) (i % SEGMENT_CHUNKS * CHUNK_BYTES), (int) CHUNK_BYTES));
+            }
+            chunks = next;
+            return next[c];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map results of " + competition, e);
+        } finally {
+            grow.unlock();
+        }
+    }
+
+    /** Mapping {@code s}; mapping past the end extends the file with zeros, i.e. with missing results. */
+    private MappedByteBuffer segment(int s) throws IOException {
+        if (s < segments.length) return segments[s];
+        try (FileChannel ch = FileChannel.open(results, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] next = Arrays.copyOf(segments, s + 1);
+            long size = SEGMENT_CHUNKS * CHUNK_BYTES;
+            for (int i = segments.length; i <= s; i++) next[i] = ch.map(FileChannel.MapMode.READ_WRITE, i * size, size);
+            segments = next;
+            return next[s];
+        }
+    }
+
+    /**
+     * Drops results of ids from {@code count} on, which a crash may have left behind after the last checkpoint: whole
+     * chunks are cut from the file, and the rest of the last chunk is cleared.
+     */
+    void truncate(int count) throws IOException {
+        int used = (count + CHUNK - 1) / CHUNK;
+        try (FileChannel ch = FileChannel.open(results, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (ch.size() > used * CHUNK_BYTES) ch.truncate(used * CHUNK_BYTES);
+        }
+        if (count % CHUNK == 0) return;
+        MappedChunk last = (MappedChunk) chunk(used - 1);
+        for (int slot = count % CHUNK; slot < CHUNK; slot++) last.clear(slot);
+    }
+
+    /** Writes every mapped change through to the file. */
+    void force() {
+        MappedByteBuffer[] segs;
+        grow.lock();
+        try {
+            segs = segments;
+        } finally {
+            grow.unlock();
+        }
+        for (MappedByteBuffer seg : segs) seg.force();
+    }
+
+    /** The files are deleted by the next checkpoint that no longer refers to them. */
+    @Override
+    public void release() { storage.released(this); }
+}
@@ -0,0 +1,256 @@
+package com.example.decathlon.store;
+
+import com.example.decathlon.core.AthleteStore;
+import com.example.decathlon.core.ResultStorage;
+import com.example.decathlon.core.ScoringService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps results off the heap in memory-mapped files, one directory per competition id. Each store generation (the
+ * live store, or one an import stages into) has a {@code results-<gen>.bin} of fixed-width chunks, see
+ * {@link MappedColumns}, and a {@code names-<gen>.bin} dictionary of athlete names in id order. Names are appended
+ * and results forced to disk at each checkpoint, which then renames a new {@code manifest} into place: the
+ * manifest lists every competition with its mode, capacity, generation and athlete count, so a crash mid-checkpoint
+ * leaves the previous one intact. A restart maps the results back in and only reads the names.
+ */
+public class MappedStorage implements ResultStorage {
+    private static final Logger log = LoggerFactory.getLogger(MappedStorage.class);
+    private static final int MAGIC = 0x44535452; // "DSTR"
+    private static final int VERSION = 1;
+    private static final String MANIFEST = "manifest";
+
+    private final Path dir;
+    /** Serializes checkpoints. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong generations = new AtomicLong();
+    /** Columns some store still uses; their files survive checkpoints that do not list them. */
+    private final Set<MappedColumns> open = ConcurrentHashMap.newKeySet();
+    private volatile long checkpointLsn;
+
+    public MappedStorage(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+    }
+
+    @Override
+    public boolean persistent() { return true; }
+
+    @Override
+    public long checkpointLsn() { return checkpointLsn; }
+
+    /** Reads the manifest and maps every competition it lists; files it does not list are left from a crash and deleted. */
+    @Override
+    public List<Stored> load() throws IOException {
+        lock.lock();
+        try {
+            generations.set(Math.max(generations.get(), highestGeneration() + 1));
+            Path file = dir.resolve(MANIFEST);
+            List<Stored> loaded = new ArrayList<>();
+            if (Files.exists(file)) {
+                CRC32C crc = new CRC32C();
+                try (InputStream raw = new BufferedInputStream(Files.newInputStream(file))) {
+                    DataInputStream in = new DataInputStream(new CheckedInputStream(raw, crc));
+                    if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Not a store manifest: " + file);
+                    long lsn = in.readLong();
+                    if (in.readInt() != AthleteStore.EVENTS) throw new IOException("Store written for other events: " + file);
+                    int n = in.readInt();
+                    List<Entry> entries = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) {
+                        entries.add(new Entry(in.readUTF(), ScoringService.Mode.values()[in.readByte()], in.readInt(),
+                                in.readLong(), in.readInt(), in.readLong()));
+                    }
+                    int expected = (int) crc.getValue();
+                    if (new DataInputStream(raw).readInt() != expected) throw new IOException("Corrupt store manifest: " + file);
+                    for (Entry e : entries) loaded.add(open(e));
+                    checkpointLsn = lsn;
+                } catch (EOFException e) {
+                    throw new IOException("Truncated store manifest: " + file, e);
+                }
+            }
+            sweep(List.of());
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public AthleteStore create(String competition) {
+        return new AthleteStore(columns(competition, generations.getAndIncrement()), new String[0]);
+    }
+
+    /**
+     * Appends the names added since the last checkpoint, forces the mapped results and renames a new manifest into
+     * place, then deletes the files no competition or in-flight import uses any more. Athletes are checkpointed up to
+     * the first id still being added; a later checkpoint, or the journal, covers the rest.
+     */
+    @Override
+    public void checkpoint(List<Stored> competitions, long lsn) throws IOException {
+        lock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>(competitions.size());
+            List<MappedColumns> listed = new ArrayList<>(competitions.size());
+            for (Stored s : competitions) {
+                if (!(s.store().columns() instanceof MappedColumns c)) {
+                    throw new IllegalStateException("Competition " + s.id() + " is not mapped");
+                }
+                appendNames(c, s.store());
+                c.force();
+                entries.add(new Entry(s.id(), s.mode(), s.capacity(), c.generation, c.named, c.namesBytes));
+                listed.add(c);
+            }
+            writeManifest(entries, lsn);
+            checkpointLsn = lsn;
+            sweep(listed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void released(MappedColumns columns) { open.remove(columns); }
+
+    private MappedColumns columns(String competition, long generation) {
+        Path d = dir.resolve(competition);
+        try {
+            Files.createDirectories(d);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create store directory " + d, e);
+        }
+        MappedColumns c = new MappedColumns(this, competition, generation,
+                d.resolve("results-" + generation + ".bin"), d.resolve("names-" + generation + ".bin"));
+        open.add(c);
+        return c;
+    }
+
+    private void appendNames(MappedColumns c, AthleteStore store) throws IOException {
+        try (FileChannel ch = FileChannel.open(c.names, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ch.truncate(c.namesBytes);
+            ch.position(c.namesBytes);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            int n = c.named;
+            for (AthleteStore.Athlete a; (a = store.get(n)) != null; n++) out.writeUTF(a.name());
+            out.flush();
+            ch.force(true);
+            c.named = n;
+            c.namesBytes = ch.position();
+        }
+    }
+
+    private void writeManifest(List<Entry> entries, long lsn) throws IOException {
+        Path file = dir.resolve(MANIFEST);
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            out.writeInt(AthleteStore.EVENTS);
+            out.writeInt(entries.size());
+            for (Entry e : entries) {
+                out.writeUTF(e.id());
+                out.writeByte(e.mode().ordinal());
+                out.writeInt(e.capacity());
+                out.writeLong(e.generation());
+                out.writeInt(e.count());
+                out.writeLong(e.namesBytes());
+            }
+            out.flush();
+            out.writeInt((int) crc.getValue());
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) { ch.force(true); }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes every file and directory that neither the manifest nor an open store uses. {@code listed} are the
+     * manifest's columns, which a competition removed since may already have released.
+     */
+    private void sweep(List<MappedColumns> listed) throws IOException {
+        Set<Path> keep = new HashSet<>();
+        keep.add(dir.resolve(MANIFEST));
+        for (MappedColumns c : open) {
+            keep.add(c.results);
+            keep.add(c.names);
+        }
+        for (MappedColumns c : listed) {
+            keep.add(c.results);
+            keep.add(c.names);
+        }
+        for (Path d : list(dir)) {
+            if (keep.contains(d)) continue;
+            if (!Files.isDirectory(d)) {
+                delete(d);
+                continue;
+            }
+            List<Path> files = list(d);
+            int kept = 0;
+            for (Path f : files) {
+                if (keep.contains(f)) kept++;
+                else delete(f);
+            }
+            if (kept == 0) delete(d);
+        }
+    }
+
+    /** Deletes quietly: a file some released mapping still holds may not be deletable yet on every platform. */
+    private static void delete(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.debug("Could not delete {} yet", p, e);
+        }
+    }
+
+    private long highestGeneration() throws IOException {
+        long max = -1;
+        for (Path d : list(dir)) {
+            if (!Files.isDirectory(d)) continue;
+            for (Path f : list(d)) {
+                String n = f.getFileName().toString();
+                int dash = n.indexOf('-'), dot = n.lastIndexOf(".bin");
+                if (dash < 0 || dot < dash) continue;
+                try {
+                    max = Math.max(max, Long.parseLong(n.substring(dash + 1, dot)));
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        return max;
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.toList();
+        }
+    }
+
+    /** Maps a competition's results back in and reads the first {@code count} names. */
+    private Stored open(Entry e) throws IOException {
+        MappedColumns c = columns(e.id(), e.generation());
+        String[] names = new String[e.count()];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(c.names), 1 << 16))) {
+            for (int i = 0; i < names.length; i++) names[i] = in.readUTF();
+        }
+        c.truncate(e.count());
+        c.named = e.count();
+        c.namesBytes = e.namesBytes();
+        return new Stored(e.id(), e.mode(), e.capacity(), new AthleteStore(c, names));
+    }
+
+    /** One competition as the manifest records it. */
+    private record Entry(String id, ScoringService.Mode mode, int capacity, long generation, int count, long namesBytes) {}
+}
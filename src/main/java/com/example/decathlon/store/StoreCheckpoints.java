@@ -0,0 +1,68 @@
+package com.example.decathlon.store;
+
+import com.example.decathlon.core.CompetitionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Checkpoints a persistent storage at a fixed interval and on close, for when no journal does. Changes since the
+ * last checkpoint are lost in a crash.
+ */
+public class StoreCheckpoints implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(StoreCheckpoints.class);
+
+    private final CompetitionService comp;
+    private final ScheduledExecutorService checkpoints;
+    /** Keeps a scheduled checkpoint and one on demand or on close from writing the same files at once. */
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    public StoreCheckpoints(CompetitionService comp, Duration interval) {
+        this.comp = comp;
+        checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "store-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        long every = interval.toMillis();
+        if (comp.storage().persistent() && every > 0) {
+            checkpoints.scheduleWithFixedDelay(this::checkpointQuietly, every, every, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Checkpoints with LSN 0: there is no journal to replay. */
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            comp.checkpoint(0);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    /** Lets a running scheduled checkpoint finish, uninterrupted, then takes a final one. */
+    @Override
+    public void close() throws IOException {
+        checkpoints.shutdown();
+        try {
+            if (!checkpoints.awaitTermination(1, TimeUnit.MINUTES)) log.warn("Scheduled store checkpoint still running at close");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (comp.storage().persistent()) checkpoint();
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Store checkpoint failed; changes since the last one are not durable yet", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.decathlon.store;
+
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ResultStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class StoreConfiguration {
+    public enum Type { HEAP, MAPPED }
+
+    @Bean
+    public ResultStorage resultStorage(@Value("${decathlon.store.type:HEAP}") Type type,
+                                       @Value("${decathlon.store.dir:data/store}") Path dir) throws IOException {
+        return type == Type.MAPPED ? new MappedStorage(dir) : ResultStorage.HEAP;
+    }
+
+    /** Without a journal nothing else checkpoints the storage. */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "decathlon.journal.enabled", havingValue = "false", matchIfMissing = true)
+    public StoreCheckpoints storeCheckpoints(CompetitionService comp,
+                                            @Value("${decathlon.store.checkpoint-interval:1m}") Duration interval) {
+        return new StoreCheckpoints(comp, interval);
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.decathlon.wire;
+
+import com.example.decathlon.core.ScoringService;
+import com.example.decathlon.dto.StandingDto;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact binary alternative to the JSON of {@code /standings} and {@code /score}, for scoreboards that poll often.
+ * Events are sent as {@link ScoringService.Event} ordinals, so that enum only ever grows at the end; counts, indexes
+ * and points are unsigned LEB128 varints; strings are a varint byte length and UTF-8.
+ *
+ * <pre>
+ * standings: 'D' 'S' version mode
+ *            eventCount event*            the mode's events in column order
+ *            athleteCount name*           the athlete dictionary, in rank order
+ *            row*                         one per athlete, in the same order:
+ *                                         mask (bit i: has points in column i), then the points of each set bit
+ * results:   'D' 'R' version mode+1 (0: the competition's mode)
+ *            nameCount name*              the athlete dictionary
+ *            resultCount (nameIndex event raw)*   raw is an 8-byte little-endian double
+ * points:    'D' 'P' version count points*
+ * </pre>
+ *
+ * A row's total is the sum of its points. Standings are written straight from the shared standings snapshot rows,
+ * with no intermediate objects per row.
+ */
+public final class CompactFormat {
+    public static final String MEDIA_TYPE = "application/vnd.decathlon.compact";
+    static final int VERSION = 1;
+
+    private static final ScoringService.Event[] EVENTS = ScoringService.Event.values();
+    private static final ScoringService.Mode[] MODES = ScoringService.Mode.values();
+
+    /** Results decoded from a request, all in one mode ({@code null}: the competition's). */
+    public record Results(ScoringService.Mode mode, String[] names, String[] events, double[] raws) {}
+
+    private CompactFormat() {}
+
+    /**
+     * Encodes {@code rows}, as taken from the standings of a competition in {@code mode}. Rows read while the mode
+     * was being switched may still be scored in the previous one; they are then written in the mode they fit.
+     */
+    public static byte[] standings(ScoringService scoring, ScoringService.Mode mode, List<StandingDto> rows) {
+        byte[] body = standings(scoring, mode, rows, true);
+        for (int i = 0; body == null && i < MODES.length; i++) {
+            if (MODES[i] != mode) body = standings(scoring, MODES[i], rows, true);
+        }
+        return body != null ? body : standings(scoring, mode, rows, false);
+    }
+
+    /** The encoding in {@code mode}, or null if {@code strict} and a row has points for an event not in it. */
+    private static byte[] standings(ScoringService scoring, ScoringService.Mode mode, List<StandingDto> rows, boolean strict) {
+        String[] ids = scoring.events(mode).keySet().toArray(new String[0]);
+        Out out = new Out(16 + rows.size() * 32);
+        out.header('S').varint(mode.ordinal()).varint(ids.length);
+        for (String id : ids) out.varint(ScoringService.Event.of(id).ordinal());
+        out.varint(rows.size());
+        for (StandingDto r : rows) out.string(r.name());
+        int[] points = new int[ids.length];
+        for (StandingDto r : rows) {
+            Map<String, Integer> scores = r.scores();
+            long mask = 0;
+            int found = 0;
+            for (int i = 0; i < ids.length; i++) {
+                Integer p = scores.get(ids[i]);
+                if (p != null) {
+                    mask |= 1L << i;
+                    points[i] = p;
+                    found++;
+                }
+            }
+            if (strict && found != scores.size()) return null;
+            out.varint(mask);
+            for (int i = 0; i < ids.length; i++) {
+                if ((mask & 1L << i) != 0) out.varint(points[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /** Decodes what {@link #standings} wrote, e.g. for a client or a check. */
+    public static List<StandingDto> readStandings(byte[] body) {
+        In in = new In(body, 'S');
+        mode(in.varint());
+        String[] ids = new String[in.count(EVENTS.length)];
+        for (int i = 0; i < ids.length; i++) ids[i] = event(in.varint()).id();
+        String[] names = new String[in.count(body.length)];
+        for (int i = 0; i < names.length; i++) names[i] = in.string();
+        List<StandingDto> rows = new ArrayList<>(names.length);
+        for (String name : names) {
+            long mask = in.varint();
+            Map<String, Integer> scores = new LinkedHashMap<>();
+            int total = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if ((mask & 1L << i) == 0) continue;
+                int p = (int) in.varint();
+                scores.put(ids[i], p);
+                total += p;
+            }
+            rows.add(new StandingDto(name, scores, total));
+        }
+        in.end();
+        return rows;
+    }
+
+    /** Encodes results to submit; {@code mode} null leaves the competition's mode. */
+    public static byte[] results(ScoringService.Mode mode, String[] names, String[] events, double[] raws) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] index = new int[names.length];
+        for (int i = 0; i < names.length; i++) index[i] = dictionary.computeIfAbsent(names[i], k -> dictionary.size());
+        Out out = new Out(16 + names.length * 12);
+        out.header('R').varint(mode == null ? 0 : mode.ordinal() + 1).varint(dictionary.size());
+        for (String name : dictionary.keySet()) out.string(name);
+        out.varint(names.length);
+        for (int i = 0; i < names.length; i++) {
+            ScoringService.Event e = ScoringService.Event.of(events[i]);
+            if (e == null) throw new IllegalArgumentException("Unknown event " + events[i]);
+            out.varint(index[i]).varint(e.ordinal()).float64(raws[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes submitted results.
+     *
+     * @throws CompactFormatException if the body is malformed or holds more than {@code max} results
+     */
+    public static Results readResults(byte[] body, int max) {
+        In in = new In(body, 'R');
+        int m = (int) in.varint();
+        ScoringService.Mode mode = m == 0 ? null : mode(m - 1);
+        String[] dictionary = new String[in.count(body.length)];
+        for (int i = 0; i < dictionary.length; i++) dictionary[i] = in.string();
+        long n = in.varint();
+        if (n > max) throw new CompactFormatException("More than " + max + " results");
+        int count = in.count(n, body.length);
+        String[] names = new String[count], events = new String[count];
+        double[] raws = new double[count];
+        for (int i = 0; i < count; i++) {
+            long name = in.varint();
+            if (name >= dictionary.length) throw new CompactFormatException("Result " + i + ": no athlete " + name);
+            names[i] = dictionary[(int) name];
+            events[i] = event(in.varint()).id();
+            raws[i] = in.float64();
+        }
+        in.end();
+        return new Results(mode, names, events, raws);
+    }
+
+    public static byte[] points(int[] points) {
+        Out out = new Out(8 + points.length * 2);
+        out.header('P').varint(points.length);
+        for (int p : points) out.varint(p);
+        return out.toByteArray();
+    }
+
+    public static int[] readPoints(byte[] body) {
+        In in = new In(body, 'P');
+        int[] points = new int[in.count(body.length)];
+        for (int i = 0; i < points.length; i++) points[i] = (int) in.varint();
+        in.end();
+        return points;
+    }
+
+    private static ScoringService.Mode mode(long ordinal) {
+        if (ordinal < 0 || ordinal >= MODES.length) throw new CompactFormatException("Unknown mode " + ordinal);
+        return MODES[(int) ordinal];
+    }
+
+    private static ScoringService.Event event(long ordinal) {
+        if (ordinal < 0 || ordinal >= EVENTS.length) throw new CompactFormatException("Unknown event " + ordinal);
+        return EVENTS[(int) ordinal];
+    }
+
+    /** Growable output buffer; strings of ASCII characters are copied without an encoder. */
+    private static final class Out {
+        private byte[] buf;
+        private int pos;
+
+        Out(int capacity) { buf = new byte[Math.max(16, capacity)]; }
+
+        Out header(char kind) {
+            ensure(3);
+            buf[pos++] = 'D';
+            buf[pos++] = (byte) kind;
+            buf[pos++] = VERSION;
+            return this;
+        }
+
+        Out varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) (v & 0x7F | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+            return this;
+        }
+
+        Out float64(double v) {
+            ensure(8);
+            ByteBuffer.wrap(buf, pos, 8).order(ByteOrder.LITTLE_ENDIAN).putDouble(v);
+            pos += 8;
+            return this;
+        }
+
+        Out string(String s) {
+            int n = s.length();
+            boolean ascii = true;
+            for (int i = 0; i < n && ascii; i++) ascii = s.charAt(i) < 0x80;
+            if (!ascii) {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                varint(b.length);
+                ensure(b.length);
+                System.arraycopy(b, 0, buf, pos, b.length);
+                pos += b.length;
+                return this;
+            }
+            varint(n);
+            ensure(n);
+            for (int i = 0; i < n; i++) buf[pos++] = (byte) s.charAt(i);
+            return this;
+        }
+
+        byte[] toByteArray() { return Arrays.copyOf(buf, pos); }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+        }
+    }
+
+    private static final class In {
+        private final byte[] buf;
+        private int pos;
+
+        In(byte[] buf, char kind) {
+            this.buf = buf;
+            if (buf.length < 3 || buf[0] != 'D' || buf[1] != kind) throw new CompactFormatException("Not a compact " + kind + " body");
+            if (buf[2] != VERSION) throw new CompactFormatException("Unsupported version " + buf[2]);
+            pos = 3;
+        }
+
+        long varint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos == buf.length) throw new CompactFormatException("Truncated at byte " + pos);
+                byte b = buf[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new CompactFormatException("Varint too long at byte " + pos);
+        }
+
+        /** A count that cannot exceed {@code max}; every counted item takes at least a byte. */
+        int count(int max) { return count(varint(), max); }
+
+        int count(long n, int max) {
+            if (n < 0 || n > max || n > buf.length - pos) throw new CompactFormatException("Bad count " + n + " at byte " + pos);
+            return (int) n;
+        }
+
+        double float64() {
+            if (buf.length - pos < 8) throw new CompactFormatException("Truncated at byte " + pos);
+            double v = ByteBuffer.wrap(buf, pos, 8).order(ByteOrder.LITTLE_ENDIAN).getDouble();
+            pos += 8;
+            return v;
+        }
+
+        String string() {
+            int n = count(buf.length);
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+
+        void end() {
+            if (pos != buf.length) throw new CompactFormatException((buf.length - pos) + " trailing bytes");
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.decathlon.wire;
+
+/** A malformed body in the {@link CompactFormat}. */
+public class CompactFormatException extends IllegalArgumentException {
+    public CompactFormatException(String message) { super(message); }
+}
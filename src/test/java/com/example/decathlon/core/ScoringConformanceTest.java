@@ -0,0 +1,115 @@
+package com.example.decathlon.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The points tables, the scalar formula and batch scoring on the Vector API must give identical ints for every
+ * performance: the whole quantized grid around each event's table, values just off it, values either side of every
+ * point where the floored points change, and degenerate input. Surefire runs with {@code jdk.incubator.vector}, so
+ * {@link ScoringService#scoreBatch} takes the vector path here.
+ */
+class ScoringConformanceTest {
+    /** Grid steps covered below the table's start and beyond the largest table in either direction. */
+    private static final int MARGIN = 1_000;
+    private static final int SPAN = 16_384 + MARGIN;
+
+    private final ScoringService tables = new ScoringService(true, false);
+    private final ScoringService formulas = new ScoringService(false, false);
+
+    @Test
+    void tablesMatchFormula() {
+        tables.verifyTables();
+    }
+
+    @Test
+    void batchScoringIsVectorized() {
+        assertTrue(ScoringService.vectorized(), "run with --add-modules jdk.incubator.vector");
+    }
+
+    @Test
+    void everyPathGivesTheSamePoints() {
+        for (ScoringService.Mode m : ScoringService.Mode.values()) {
+            for (ScoringService.Event ev : ScoringService.Event.values()) {
+                ScoringService.EventDef e = tables.get(m, ev);
+                if (e != null) check(m, ev, e, raws(e));
+            }
+        }
+    }
+
+    @Test
+    void batchLeavesTheRestOfTheOutputAlone() {
+        ScoringService.EventDef e = tables.get(ScoringService.Mode.DEC, ScoringService.Event.values()[0]);
+        double[] raws = raws(e);
+        int[] out = new int[raws.length];
+        Arrays.fill(out, -7);
+        tables.scoreBatch(ScoringService.Mode.DEC, ScoringService.Event.values()[0], raws, 3, raws.length - 5, out);
+        for (int i = 0; i < raws.length; i++) {
+            int expected = i < 3 || i >= raws.length - 5 ? -7 : ScoringService.formula(e, raws[i]);
+            assertEquals(expected, out[i], "index " + i);
+        }
+    }
+
+    private void check(ScoringService.Mode m, ScoringService.Event ev, ScoringService.EventDef e, double[] raws) {
+        int[] batch = new int[raws.length];
+        tables.scoreBatch(m, ev, raws, 0, raws.length, batch);
+        int[] vector = null;
+        if (ScoringService.vectorized()) {
+            vector = new int[raws.length];
+            VectorScoring.score(e, raws, 0, raws.length, vector);
+        }
+        for (int i = 0; i < raws.length; i++) {
+            double raw = raws[i];
+            int expected = ScoringService.formula(e, raw);
+            assertEquals(expected, tables.score(m, ev, raw), () -> m + "/" + e.id() + " table at " + raw);
+            assertEquals(expected, formulas.score(m, ev, raw), () -> m + "/" + e.id() + " formula at " + raw);
+            assertEquals(expected, batch[i], () -> m + "/" + e.id() + " batch at " + raw);
+            if (vector != null) assertEquals(expected, vector[i], () -> m + "/" + e.id() + " vector at " + raw);
+        }
+    }
+
+    /** Performances to score for {@code e}; arranged so that vector lanes mix zero, edge and ordinary values. */
+    private static double[] raws(ScoringService.EventDef e) {
+        double scale = "cm".equals(e.unit()) ? 1 : 100;
+        long lo = (long) Math.floor(e.B() * scale) - (e.type() == ScoringService.Type.TRACK ? SPAN : MARGIN);
+        long hi = (long) Math.ceil(e.B() * scale) + (e.type() == ScoringService.Type.TRACK ? MARGIN : SPAN);
+        double[] out = new double[(int) (hi - lo + 1) * 2 + 4096];
+        int n = 0;
+        for (double raw : new double[] {0, -0.0, -1, -1e9, Double.NaN, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, e.B(), Math.nextUp(e.B()),
+                Math.nextDown(e.B()), e.B() + 0.5 / scale, e.B() - 0.5 / scale}) {
+            out[n++] = raw;
+        }
+        double previous = (lo - 1) / scale;
+        for (long q = lo; q <= hi; q++) {
+            double raw = q / scale;
+            out[n++] = raw;
+            if (q % 7 == 0) out[n++] = raw + 1 / (3 * scale);
+            if (ScoringService.formula(e, previous) != ScoringService.formula(e, raw)) {
+                double[] step = boundary(e, previous, raw);
+                if (n + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+                out[n++] = step[0];
+                out[n++] = step[1];
+            }
+            if (n + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+            previous = raw;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Adjacent doubles between {@code a} and {@code b} on either side of a change in the floored points. */
+    private static double[] boundary(ScoringService.EventDef e, double a, double b) {
+        int atA = ScoringService.formula(e, a);
+        while (Math.nextUp(a) < b) {
+            double mid = a + (b - a) / 2;
+            if (mid <= a || mid >= b) break;
+            if (ScoringService.formula(e, mid) == atA) a = mid;
+            else b = mid;
+        }
+        return new double[] {a, b};
+    }
+}
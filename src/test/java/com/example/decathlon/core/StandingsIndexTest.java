@@ -0,0 +1,113 @@
+package com.example.decathlon.core;
+
+import com.example.decathlon.dto.RankedStandingDto;
+import com.example.decathlon.dto.StandingDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The O(log n) rank queries must agree with ranking a sorted {@link Competition#standings()} snapshot by hand, with
+ * ties sharing the rank of the first of them, also once totals outgrow the count tree's initial size.
+ */
+class StandingsIndexTest {
+    private static final String[] EVENTS = {"100m", "longJump", "shotPut"};
+
+    private final CompetitionService comp = new CompetitionService(new ScoringService());
+
+    @Test
+    void ranksAndPagesMatchTheSortedStandings() {
+        Competition c = comp.open("ties", ScoringService.Mode.DEC);
+        Random r = new Random(1);
+        for (int i = 0; i < 300; i++) {
+            // Few distinct performances, so many athletes tie on their total.
+            c.score("a" + i, EVENTS[r.nextInt(EVENTS.length)], choose(r), null);
+            if (r.nextBoolean()) c.score("a" + i, EVENTS[0], choose(r), null);
+        }
+        c.addCompetitor("none");
+        check(c);
+    }
+
+    @Test
+    void ranksAndPagesSurviveGrowingTheCounts() {
+        Competition c = comp.open("grow", ScoringService.Mode.DEC);
+        for (int i = 0; i < 50; i++) c.score("a" + i, "100m", 10 + i % 10 / 10.0, null);
+        check(c);
+        // Absurd performances push totals well past the 16384 the counts start with.
+        for (int i = 0; i < 20; i++) {
+            c.score("b" + i, "shotPut", 200 + i % 5, null);
+            c.score("b" + i, "longJump", 4000, null);
+            c.score("b" + i, "100m", 0.5, null);
+        }
+        assertTrue(c.standings().get(0).total() > 16_384, "grew past the initial counts");
+        check(c);
+        c.score("b0", "shotPut", 1, null);
+        check(c);
+    }
+
+    @Test
+    void countsMatchBruteForce() {
+        TotalCounts counts = new TotalCounts();
+        int[] perTotal = new int[1 << 17];
+        Random r = new Random(2);
+        List<Integer> live = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            if (!live.isEmpty() && r.nextInt(3) == 0) {
+                int t = live.remove(r.nextInt(live.size()));
+                counts.add(t, -1);
+                perTotal[t]--;
+            } else {
+                int t = step < 10_000 ? r.nextInt(2_000) : r.nextInt(perTotal.length);
+                counts.add(t, 1);
+                perTotal[t]++;
+                live.add(t);
+            }
+            if (step % 997 != 0) continue;
+            assertEquals(live.size(), counts.size(), "size");
+            int above = live.size();
+            for (int t = 0; t < perTotal.length; t++) {
+                above -= perTotal[t];
+                if (perTotal[t] > 0 || t % 4096 == 0) assertEquals(above, counts.above(t), "above " + t);
+            }
+            int k = 0;
+            for (int t = 0; t < perTotal.length; t++) {
+                for (int i = 0; i < perTotal[t]; i++) assertEquals(t, counts.select(++k), "select " + k);
+            }
+            assertEquals(-1, counts.select(k + 1), "select past the end");
+        }
+    }
+
+    private static double choose(Random r) {
+        return new double[] {10.5, 11.0, 11.5}[r.nextInt(3)];
+    }
+
+    /** Checks every rank query of {@code c} against ranks computed from its standings snapshot. */
+    private static void check(Competition c) {
+        List<StandingDto> rows = c.standings();
+        List<RankedStandingDto> expected = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            StandingDto row = rows.get(i);
+            int rank = i > 0 && rows.get(i - 1).total() == row.total() ? expected.get(i - 1).rank() : i + 1;
+            expected.add(new RankedStandingDto(rank, row.name(), row.scores(), row.total()));
+        }
+        for (int i = 1; i < rows.size(); i++) {
+            assertTrue(rows.get(i - 1).total() >= rows.get(i).total(), "standings sorted at " + i);
+        }
+        assertEquals(expected, c.standings(0, rows.size() + 10));
+        for (int offset = 0; offset <= rows.size(); offset += 7) {
+            for (int limit : new int[] {1, 3, 25}) {
+                int to = Math.min(rows.size(), offset + limit);
+                assertEquals(expected.subList(offset, to), c.standings(offset, limit), "page " + offset + "+" + limit);
+            }
+        }
+        for (int k : new int[] {0, 1, 10, rows.size()}) assertEquals(expected.subList(0, Math.min(k, rows.size())), c.top(k));
+        for (RankedStandingDto row : expected) assertEquals(row, c.rank(row.name()));
+        assertNull(c.rank("nobody"));
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.decathlon.journal;
+
+import com.example.decathlon.core.AthleteStore;
+import com.example.decathlon.core.ChangeLog;
+import com.example.decathlon.core.Competition;
+import com.example.decathlon.core.CompetitionService;
+import com.example.decathlon.core.ScoringService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery from the journal and its snapshots. Crashes are simulated by copying the directory while the journal is
+ * still open, so nothing is written on close; torn writes by editing a closed segment in place.
+ */
+class JournalTest {
+    private static final long SEGMENT = 1 << 16;
+    private static final String[] EVENTS = {"100m", "longJump", "shotPut", "highJump"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysEveryRecordAfterClose() throws IOException {
+        try (Journal j = journal(dir, null)) {
+            for (int i = 0; i < 5; i++) add(j, "n" + i);
+            j.append(new ChangeLog.Score("a", "n1", "100m", ScoringService.Mode.DEC, 11.5), () -> null);
+        }
+        List<String> seen = new ArrayList<>();
+        try (Journal j = journal(dir, seen)) {
+            assertEquals(List.of("n0", "n1", "n2", "n3", "n4", "score n1 100m 11.5"), seen);
+            assertEquals(6, j.lastLsn());
+        }
+    }
+
+    @Test
+    void stopsAtATornFinalRecord() throws IOException {
+        try (Journal j = journal(dir, null)) {
+            for (int i = 0; i < 5; i++) add(j, "n" + i);
+        }
+        try (Segment s = segment(dir)) {
+            int last = s.record(4);
+            s.map.put(last + 12, (byte) (s.map.get(last + 12) ^ 1));
+        }
+        List<String> seen = new ArrayList<>();
+        try (Journal j = journal(dir, seen)) {
+            assertEquals(List.of("n0", "n1", "n2", "n3"), seen);
+            assertEquals(4, j.lastLsn());
+            add(j, "m4");
+        }
+        seen.clear();
+        try (Journal j = journal(dir, seen)) {
+            assertEquals(List.of("n0", "n1", "n2", "n3", "m4"), seen);
+        }
+    }
+
+    @Test
+    void stopsAtAGapInTheLsns() throws IOException {
+        try (Journal j = journal(dir, null)) {
+            for (int i = 0; i < 5; i++) add(j, "n" + i);
+        }
+        try (Segment s = segment(dir)) {
+            s.relabel(s.record(2), 7);
+        }
+        List<String> seen = new ArrayList<>();
+        try (Journal j = journal(dir, seen)) {
+            assertEquals(List.of("n0", "n1"), seen);
+            assertEquals(2, j.lastLsn());
+            add(j, "m2");
+        }
+        seen.clear();
+        try (Journal j = journal(dir, seen)) {
+            assertEquals(List.of("n0", "n1", "m2"), seen);
+            assertEquals(3, j.lastLsn());
+        }
+    }
+
+    /** Records written concurrently can land behind a torn one; they are zeroed, not replayed after newer records. */
+    @Test
+    void clearsIntactRecordsBehindATornOne() throws IOException {
+        try (Journal j = journal(dir, null)) {
+            for (int i = 0; i < 5; i++) add(j, "n" + i);
+        }
+        try (Segment s = segment(dir)) {
+            s.map.putInt(s.record(2), 0);
+        }
+        List<String> seen = new ArrayList<>();
+        try (Journal j = journal(dir, seen)) {
+            assertEquals(List.of("n0", "n1"), seen);
+            add(j, "m2");
+        }
+        seen.clear();
+        try (Journal j = journal(dir, seen)) {
+            assertEquals(List.of("n0", "n1", "m2"), seen);
+            assertEquals(3, j.lastLsn());
+        }
+    }
+
+    @Test
+    void replaysTheTailOverTheSnapshot() throws IOException {
+        CompetitionService live = new CompetitionService(new ScoringService());
+        JournalManager m = new JournalManager(live, dir, SEGMENT, Journal.Sync.GROUP, Duration.ZERO);
+        Competition c = live.open("a", ScoringService.Mode.DEC);
+        for (int i = 0; i < 20; i++) c.score("p" + i, "100m", 10 + i / 10.0, null);
+        c.importCsv("MODE,DEC\nName,100m,longJump\nx,11.0,700\ny,12.0,650\n");
+        m.checkpoint();
+        c.score("x", "shotPut", 15.2, null);
+        c.score("z", "100m", 10.9, "HEP");
+        c.addCompetitor("w", 100);
+        Path crash = crashImage();
+        m.close();
+
+        CompetitionService back = new CompetitionService(new ScoringService());
+        try (JournalManager recovered = new JournalManager(back, crash, SEGMENT, Journal.Sync.GROUP, Duration.ZERO)) {
+            assertEquals(3, recovered.replayedRecords());
+            assertEquals(dump(live), dump(back));
+        }
+    }
+
+    @Test
+    void concurrentChangesReplayToTheLiveState() throws Exception {
+        CompetitionService live = new CompetitionService(new ScoringService());
+        JournalManager m = new JournalManager(live, dir, SEGMENT, Journal.Sync.GROUP, Duration.ZERO);
+        live.open("a", ScoringService.Mode.DEC);
+        live.open("b", ScoringService.Mode.HEP);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 8; t++) done.add(pool.submit(() -> change(live, 1_000)));
+            for (Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        Path crash = crashImage();
+        m.close();
+
+        CompetitionService back = new CompetitionService(new ScoringService());
+        try (JournalManager recovered = new JournalManager(back, crash, SEGMENT, Journal.Sync.GROUP, Duration.ZERO)) {
+            try (Stream<Path> files = Files.list(crash)) {
+                assertTrue(files.count() > 2, "spans several segments");
+            }
+            assertEquals(dump(live), dump(back));
+        }
+    }
+
+    /** Scores, new athletes, batches and mode switches, mixed at random over two competitions. */
+    private static Void change(CompetitionService comp, int n) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        for (int i = 0; i < n; i++) {
+            Competition c = comp.get(r.nextBoolean() ? "a" : "b");
+            String name = "p" + r.nextInt(200);
+            int k = r.nextInt(100);
+            if (k < 2) c.score(name, EVENTS[0], r.nextDouble(9, 14), r.nextBoolean() ? "DEC" : "HEP");
+            else if (k < 8) c.addCompetitor("q" + r.nextInt(300), 150);
+            else if (k < 12) c.scoreBatch(new String[] {name, "p" + r.nextInt(200)}, new String[] {EVENTS[1], EVENTS[2]},
+                    new double[] {r.nextDouble(500, 800), r.nextDouble(5, 20)}, null);
+            else c.score(name, EVENTS[r.nextInt(EVENTS.length)], Math.round(r.nextDouble(1, 15) * 100) / 100.0, null);
+        }
+        return null;
+    }
+
+    private static String dump(CompetitionService comp) {
+        StringBuilder b = new StringBuilder();
+        for (String id : List.of("default", "a", "b")) {
+            Competition c = comp.get(id);
+            if (c == null) continue;
+            b.append(id).append(' ').append(c.mode()).append('\n');
+            for (AthleteStore.Athlete a : c.athletes()) b.append(a.name()).append(' ').append(a.results()).append('\n');
+            b.append(c.standings()).append('\n');
+        }
+        return b.toString();
+    }
+
+    /** The journal directory as a crash would leave it: everything appended so far, no final snapshot. */
+    private Path crashImage() throws IOException {
+        Path crash = Files.createDirectory(dir.resolve("crash"));
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : files.filter(Files::isRegularFile).toList()) Files.copy(f, crash.resolve(f.getFileName()));
+        }
+        return crash;
+    }
+
+    private static Journal journal(Path dir, List<String> seen) throws IOException {
+        return new Journal(dir, SEGMENT, Journal.Sync.GROUP, 1, op -> {
+            if (seen == null) return;
+            switch (op) {
+                case ChangeLog.Add a -> seen.add(a.name());
+                case ChangeLog.Score s -> seen.add("score " + s.name() + " " + s.event() + " " + s.value());
+                default -> seen.add(op.toString());
+            }
+        });
+    }
+
+    private static void add(Journal j, String name) {
+        j.append(new ChangeLog.Add("a", name, 100), () -> null);
+    }
+
+    private static Segment segment(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return new Segment(files.filter(f -> f.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow());
+        }
+    }
+
+    /** A closed segment mapped for editing; records are {@code int length, long lsn, ..., int crc}. */
+    private static final class Segment implements AutoCloseable {
+        final FileChannel channel;
+        final MappedByteBuffer map;
+
+        Segment(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+
+        /** The position of the {@code i}th record, 0-based. */
+        int record(int i) {
+            int pos = 8;
+            for (int k = 0; k < i; k++) pos += 4 + map.getInt(pos) + 4;
+            return pos;
+        }
+
+        /** Gives the record at {@code pos} another LSN, with a checksum that matches it. */
+        void relabel(int pos, long lsn) {
+            int len = map.getInt(pos);
+            map.putLong(pos + 4, lsn);
+            CRC32C crc = new CRC32C();
+            crc.update(map.slice(pos + 4, len));
+            map.putInt(pos + 4 + len, (int) crc.getValue());
+        }
+
+        @Override
+        public void close() throws IOException {
+            map.force();
+            channel.close();
+        }
+    }
+}